@@ -1,278 +1,435 @@
-import conexion.ConexionManager;
-import dao.ProductoDAO;
-import dao.ProductoDAO.TipoBD;
-import java.math.BigDecimal;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.util.List;
-import java.util.Scanner;
-import modelo.ProductoElectronico;
-
-public class GestorInventario {
-
-    // Componentes principales del sistema
-    private static Scanner sc = new Scanner(System.in);  
-    private static ProductoDAO dao;                      
-    private static String bdActual = "H2";// Muestra qué BD estamos usando
-
-    public static void main(String[] args) {
-        // INICIO DEL PROGRAMA
-        System.out.println("======== GESTOR DE INVENTARIO ELECTRÓNICO ========");
-
-        // Configuración inicial
-        ConexionManager.inicializarBD();  // Crea las tablas en ambas bases de datos
-        dao = new ProductoDAO(TipoBD.H2); // Empezamos usando H2 por defecto
-
-        // BUCLE PRINCIPAL - mantiene el programa ejecutándose
-        boolean salir = false;
-        while (!salir) {
-            mostrarMenu();                    // Muestra las opciones al usuario
-            int op = leerInt("Opción: ");     // Lee la opción elegida
-            switch (op) {
-                // CRUD - Operaciones básicas
-                case 1 -> insertarProducto();     
-                case 2 -> listarProductos();      
-                case 3 -> buscarPorId();          
-                case 4 -> actualizarProducto();   
-                case 5 -> eliminarProducto();     
-                
-                // CONSULTAS ESPECIALES
-                case 6 -> buscarPorNombre();      // Búsqueda por texto
-                case 7 -> listarStockBajo();      // Filtro por stock bajo
-                case 8 -> listarPorCategoria();   // Filtro por categoría
-                case 9 -> mostrarEstadisticas();  // Informes y estadísticas
-                
-                // CONFIGURACIÓN
-                case 10 -> cambiarBD();         
-                case 0 -> salir = true;          
-                default -> System.out.println("Opción inválida");
-            }
-            
-            // Pausa para que el usuario vea los resultados
-            if (!salir) {
-                System.out.println("\nPresione ENTER para continuar...");
-                sc.nextLine();
-            }
-        }
-        
-        // FIN DEL PROGRAMA
-        System.out.println("\nSaliendo del sistema...");
-    }
-
-    // MENÚ PRINCIPAL - muestra todas las opciones disponibles
-    private static void mostrarMenu() {
-        System.out.println("\n--- MENÚ PRINCIPAL [" + bdActual + "] ---");
-        System.out.println("1. Insertar producto");
-        System.out.println("2. Listar productos");
-        System.out.println("3. Buscar producto por ID");
-        System.out.println("4. Actualizar producto");
-        System.out.println("5. Eliminar producto");
-        System.out.println("6. Buscar por nombre");
-        System.out.println("7. Listar stock bajo");
-        System.out.println("8. Listar por categoría");
-        System.out.println("9. Ver estadísticas");
-        System.out.println("10. Cambiar base de datos");
-        System.out.println("0. Salir");
-    }
-
-    // LECTURA SEGURA DE NÚMEROS - evita que el programa se caiga con entrada inválida
-    private static int leerInt(String msg) {
-        System.out.print(msg);
-        try {
-            return Integer.parseInt(sc.nextLine());
-        } catch (Exception e) {
-            return -1;  // Retorna -1 si hay error (opción inválida)
-        }
-    }
-
-    // OPERACIÓN: INSERTAR NUEVO PRODUCTO
-    private static void insertarProducto() {
-        System.out.println("\n--- NUEVO PRODUCTO ---");
-        try {
-            // Recoger datos del usuario
-            System.out.print("Nombre: ");
-            String nombre = sc.nextLine();
-            System.out.print("Categoría: ");
-            String categoria = sc.nextLine();
-            BigDecimal precio = new BigDecimal(leer("Precio: "));
-            int stock = Integer.parseInt(leer("Stock: "));
-            
-            // Fecha opcional (hoy por defecto)
-            String fechaStr = leer("Fecha ingreso (dd/MM/yyyy) [Enter para hoy]: ");
-            LocalDate fecha = fechaStr.isEmpty()
-                    ? LocalDate.now()  // Fecha actual si no se especifica
-                    : LocalDate.parse(fechaStr, DateTimeFormatter.ofPattern("dd/MM/yyyy"));
-
-            // Crear objeto y guardar en BD
-            ProductoElectronico p = new ProductoElectronico(nombre, categoria, precio, stock, fecha);
-            if (dao.insertar(p))
-                System.out.println("Producto insertado correctamente");
-            else
-                System.out.println("No se pudo insertar el producto");
-        } catch (Exception e) {
-            System.out.println("Error: " + e.getMessage());
-        }
-    }
-
-    // OPERACIÓN: LISTAR TODOS LOS PRODUCTOS
-    private static void listarProductos() {
-        System.out.println("\n--- LISTA DE PRODUCTOS ---");
-        List<ProductoElectronico> lista = dao.listarTodos();
-        if (lista.isEmpty()) 
-            System.out.println("No hay productos registrados.");
-        else 
-            lista.forEach(System.out::println);  // Mostrar cada producto
-    }
-
-    // OPERACIÓN: BUSCAR PRODUCTO POR ID
-    private static void buscarPorId() {
-        int id = leerInt("Ingrese ID: ");
-        ProductoElectronico p = dao.obtenerPorId(id);
-        if (p != null) 
-            System.out.println(p);  // Mostrar producto encontrado
-        else 
-            System.out.println("No se encontró el producto con ID " + id);
-    }
-
-    // OPERACIÓN: ACTUALIZAR PRODUCTO EXISTENTE
-    private static void actualizarProducto() {
-        int id = leerInt("ID a actualizar: ");
-        ProductoElectronico p = dao.obtenerPorId(id);
-        
-        // Verificar que el producto existe
-        if (p == null) {
-            System.out.println("No existe ese producto.");
-            return;
-        }
-        
-        // Mostrar datos actuales
-        System.out.println("Producto actual: " + p);
-        
-        // Pedir nuevos datos (Enter para mantener valores actuales)
-        System.out.print("Nuevo nombre (Enter para mantener): ");
-        String nombre = sc.nextLine();
-        if (!nombre.isEmpty()) p.setNombre(nombre);
-
-        System.out.print("Nueva categoría (Enter para mantener): ");
-        String cat = sc.nextLine();
-        if (!cat.isEmpty()) p.setCategoria(cat);
-
-        String pr = leer("Nuevo precio (Enter para mantener): ");
-        if (!pr.isEmpty()) p.setPrecio(new BigDecimal(pr));
-
-        String st = leer("Nuevo stock (Enter para mantener): ");
-        if (!st.isEmpty()) p.setStock(Integer.parseInt(st));
-
-        // Guardar cambios
-        if (dao.actualizar(p)) 
-            System.out.println("Producto actualizado");
-        else 
-            System.out.println("Error al actualizar");
-    }
-
-    // OPERACIÓN: ELIMINAR PRODUCTO CON CONFIRMACIÓN
-    private static void eliminarProducto() {
-        int id = leerInt("ID del producto a eliminar: ");
-        ProductoElectronico p = dao.obtenerPorId(id);
-        
-        if (p == null) {
-            System.out.println("No encontrado.");
-            return;
-        }
-        
-        // Mostrar producto y pedir confirmación
-        System.out.println("Producto: " + p);
-        System.out.print("¿Eliminar? (S/N): ");
-        
-        if (sc.nextLine().equalsIgnoreCase("S")) {
-            if (dao.eliminar(id)) 
-                System.out.println("Producto eliminado");
-            else 
-                System.out.println("No se pudo eliminar");
-        } else {
-            System.out.println("Operación cancelada");
-        }
-    }
-
-    // CONSULTA: BÚSQUEDA POR NOMBRE (búsqueda parcial)
-    private static void buscarPorNombre() {
-        String nom = leer("Buscar nombre: ");
-        List<ProductoElectronico> lista = dao.buscarPorNombre(nom);
-        
-        if (lista.isEmpty()) 
-            System.out.println("No se encontraron resultados");
-        else 
-            lista.forEach(System.out::println);
-    }
-
-    // CONSULTA: FILTRAR PRODUCTOS CON STOCK BAJO
-    private static void listarStockBajo() {
-        int min = leerInt("Stock mínimo: ");
-        List<ProductoElectronico> lista = dao.listarStockBajo(min);
-        
-        if (lista.isEmpty()) 
-            System.out.println("No hay productos con stock bajo");
-        else 
-            lista.forEach(System.out::println);
-    }
-
-    // CONSULTA: FILTRAR POR CATEGORÍA
-    private static void listarPorCategoria() {
-        String cat = leer("Categoría: ");
-        List<ProductoElectronico> lista = dao.listarPorCategoria(cat);
-        
-        if (lista.isEmpty()) 
-            System.out.println("No hay productos en esa categoría");
-        else 
-            lista.forEach(System.out::println);
-    }
-
-    // INFORMES: ESTADÍSTICAS DEL INVENTARIO
-    private static void mostrarEstadisticas() {
-        List<ProductoElectronico> lista = dao.listarTodos();
-        
-        if (lista.isEmpty()) {
-            System.out.println("Inventario vacío.");
-            return;
-        }
-        
-        // Cálculos estadísticos
-        int total = dao.contarProductos();  // Total de productos
-        int stockTotal = lista.stream().mapToInt(ProductoElectronico::getStock).sum();  // Suma de stock
-        
-        // Valor total del inventario (precio * stock de cada producto)
-        BigDecimal valorTotal = lista.stream()
-                .map(p -> p.getPrecio().multiply(new BigDecimal(p.getStock())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        // Mostrar resultados
-        System.out.println("Total productos: " + total);
-        System.out.println("Stock total: " + stockTotal);
-        System.out.println("Valor total: $" + valorTotal);
-    }
-
-    // CONFIGURACIÓN: CAMBIAR ENTRE BASES DE DATOS
-    private static void cambiarBD() {
-        System.out.println("\n1. H2 (Embebida)");
-        System.out.println("2. Oracle (No embebida)");
-        int op = leerInt("Seleccione: ");
-        
-        if (op == 1) {
-            dao.cambiarTipoBD(TipoBD.H2);
-            bdActual = "H2";
-            System.out.println("Cambiado a H2");
-        } else if (op == 2) {
-            dao.cambiarTipoBD(TipoBD.ORACLE);
-            bdActual = "Oracle";
-            System.out.println("Cambiado a Oracle");
-        } else {
-            System.out.println("Opción inválida");
-        }
-    }
-
-    // LEER TEXTO DEL USUARIO
-    private static String leer(String msg) {
-        System.out.print(msg);
-        return sc.nextLine();
-    }
+import conexion.ConexionManager;
+import dao.HistorialStock;
+import dao.ProductoDAO;
+import dao.ProductoDAO.TipoBD;
+import dao.SnapshotInventario;
+import herramientas.InformeProductos;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Scanner;
+import modelo.ProductoElectronico;
+
+public class GestorInventario {
+
+    // Componentes principales del sistema
+    private static Scanner sc = new Scanner(System.in);  
+    private static ProductoDAO dao;                      
+    private static String bdActual = "H2";// Muestra qué BD estamos usando
+
+    public static void main(String[] args) {
+        // INICIO DEL PROGRAMA
+        System.out.println("======== GESTOR DE INVENTARIO ELECTRÓNICO ========");
+
+        // Configuración inicial
+        ConexionManager.inicializarBD();  // Crea las tablas en ambas bases de datos
+        dao = new ProductoDAO(TipoBD.H2); // Empezamos usando H2 por defecto
+        dao.cargarIndiceNombres();        // Índice para autocompletar nombres
+
+        // BUCLE PRINCIPAL - mantiene el programa ejecutándose
+        boolean salir = false;
+        while (!salir) {
+            mostrarMenu();                    // Muestra las opciones al usuario
+            int op = leerInt("Opción: ");     // Lee la opción elegida
+            switch (op) {
+                // CRUD - Operaciones básicas
+                case 1 -> insertarProducto();     
+                case 2 -> listarProductos();      
+                case 3 -> buscarPorId();          
+                case 4 -> actualizarProducto();   
+                case 5 -> eliminarProducto();     
+                
+                // CONSULTAS ESPECIALES
+                case 6 -> buscarPorNombre();      // Búsqueda por texto
+                case 7 -> listarStockBajo();      // Filtro por stock bajo
+                case 8 -> listarPorCategoria();   // Filtro por categoría
+                case 9 -> mostrarEstadisticas();  // Informes y estadísticas
+                
+                // CONFIGURACIÓN
+                case 10 -> cambiarBD();         
+                
+                // MANTENIMIENTO
+                case 11 -> exportarSnapshot();    // Copia binaria de la tabla
+                case 12 -> restaurarSnapshot();   // Carga desde una copia binaria
+                
+                // HISTÓRICO
+                case 13 -> listarPorFechas();      // Altas entre dos fechas, por páginas
+                case 14 -> historialStock();       // Movimientos y resúmenes diarios
+                case 15 -> exportarListado();      // Tabla, CSV o JSON a un archivo
+                case 0 -> salir = true;          
+                default -> System.out.println("Opción inválida");
+            }
+            
+            // Pausa para que el usuario vea los resultados
+            if (!salir) {
+                System.out.println("\nPresione ENTER para continuar...");
+                sc.nextLine();
+            }
+        }
+        
+        // FIN DEL PROGRAMA
+        System.out.println("\nSaliendo del sistema...");
+    }
+
+    // MENÚ PRINCIPAL - muestra todas las opciones disponibles
+    private static void mostrarMenu() {
+        System.out.println("\n--- MENÚ PRINCIPAL [" + bdActual + "] ---");
+        System.out.println("1. Insertar producto");
+        System.out.println("2. Listar productos");
+        System.out.println("3. Buscar producto por ID");
+        System.out.println("4. Actualizar producto");
+        System.out.println("5. Eliminar producto");
+        System.out.println("6. Buscar por nombre");
+        System.out.println("7. Listar stock bajo");
+        System.out.println("8. Listar por categoría");
+        System.out.println("9. Ver estadísticas");
+        System.out.println("10. Cambiar base de datos");
+        System.out.println("11. Exportar snapshot");
+        System.out.println("12. Restaurar snapshot");
+        System.out.println("13. Productos por fecha de ingreso");
+        System.out.println("14. Historial de stock");
+        System.out.println("15. Exportar listado");
+        System.out.println("0. Salir");
+    }
+
+    // LECTURA SEGURA DE NÚMEROS - evita que el programa se caiga con entrada inválida
+    private static int leerInt(String msg) {
+        System.out.print(msg);
+        try {
+            return Integer.parseInt(sc.nextLine());
+        } catch (Exception e) {
+            return -1;  // Retorna -1 si hay error (opción inválida)
+        }
+    }
+
+    // OPERACIÓN: INSERTAR NUEVO PRODUCTO
+    private static void insertarProducto() {
+        System.out.println("\n--- NUEVO PRODUCTO ---");
+        try {
+            // Recoger datos del usuario
+            System.out.print("Nombre: ");
+            String nombre = sc.nextLine();
+            System.out.print("Categoría: ");
+            String categoria = sc.nextLine();
+            BigDecimal precio = new BigDecimal(leer("Precio: "));
+            int stock = Integer.parseInt(leer("Stock: "));
+            
+            // Fecha opcional (hoy por defecto)
+            String fechaStr = leer("Fecha ingreso (dd/MM/yyyy) [Enter para hoy]: ");
+            LocalDate fecha = fechaStr.isEmpty()
+                    ? LocalDate.now()  // Fecha actual si no se especifica
+                    : LocalDate.parse(fechaStr, DateTimeFormatter.ofPattern("dd/MM/yyyy"));
+
+            // Crear objeto y guardar en BD
+            ProductoElectronico p = new ProductoElectronico(nombre, categoria, precio, stock, fecha);
+            if (dao.insertar(p))
+                System.out.println("Producto insertado correctamente");
+            else
+                System.out.println("No se pudo insertar el producto");
+        } catch (Exception e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+
+    // OPERACIÓN: LISTAR TODOS LOS PRODUCTOS
+    private static void listarProductos() {
+        System.out.println("\n--- LISTA DE PRODUCTOS ---");
+        // Se escriben según llegan de la BD, sin cargar la lista entera
+        int filas = 0;
+        try (InformeProductos informe = InformeProductos.consola(InformeProductos.Formato.TABLA)) {
+            filas = dao.recorrerTodos(informe);
+        } catch (IOException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+        if (filas == 0) 
+            System.out.println("No hay productos registrados.");
+    }
+
+    // OPERACIÓN: BUSCAR PRODUCTO POR ID
+    private static void buscarPorId() {
+        int id = leerInt("Ingrese ID: ");
+        ProductoElectronico p = dao.obtenerPorId(id);
+        if (p != null) 
+            System.out.println(p);  // Mostrar producto encontrado
+        else 
+            System.out.println("No se encontró el producto con ID " + id);
+    }
+
+    // OPERACIÓN: ACTUALIZAR PRODUCTO EXISTENTE
+    private static void actualizarProducto() {
+        int id = leerInt("ID a actualizar: ");
+        ProductoElectronico p = dao.obtenerPorId(id);
+        
+        // Verificar que el producto existe
+        if (p == null) {
+            System.out.println("No existe ese producto.");
+            return;
+        }
+        
+        // Mostrar datos actuales
+        System.out.println("Producto actual: " + p);
+        
+        // Pedir nuevos datos (Enter para mantener valores actuales)
+        System.out.print("Nuevo nombre (Enter para mantener): ");
+        String nombre = sc.nextLine();
+        if (!nombre.isEmpty()) p.setNombre(nombre);
+
+        System.out.print("Nueva categoría (Enter para mantener): ");
+        String cat = sc.nextLine();
+        if (!cat.isEmpty()) p.setCategoria(cat);
+
+        String pr = leer("Nuevo precio (Enter para mantener): ");
+        if (!pr.isEmpty()) p.setPrecio(new BigDecimal(pr));
+
+        String st = leer("Nuevo stock (Enter para mantener): ");
+        if (!st.isEmpty()) p.setStock(Integer.parseInt(st));
+
+        // Guardar cambios
+        if (dao.actualizar(p)) 
+            System.out.println("Producto actualizado");
+        else 
+            System.out.println("Error al actualizar");
+    }
+
+    // OPERACIÓN: ELIMINAR PRODUCTO CON CONFIRMACIÓN
+    private static void eliminarProducto() {
+        int id = leerInt("ID del producto a eliminar: ");
+        ProductoElectronico p = dao.obtenerPorId(id);
+        
+        if (p == null) {
+            System.out.println("No encontrado.");
+            return;
+        }
+        
+        // Mostrar producto y pedir confirmación
+        System.out.println("Producto: " + p);
+        System.out.print("¿Eliminar? (S/N): ");
+        
+        if (sc.nextLine().equalsIgnoreCase("S")) {
+            if (dao.eliminar(id)) 
+                System.out.println("Producto eliminado");
+            else 
+                System.out.println("No se pudo eliminar");
+        } else {
+            System.out.println("Operación cancelada");
+        }
+    }
+
+    // CONSULTA: BÚSQUEDA POR NOMBRE (búsqueda parcial)
+    private static void buscarPorNombre() {
+        String nom = leer("Buscar nombre: ");
+        
+        // Sugerencias por prefijo (sin tildes ni mayúsculas) para elegir el nombre exacto
+        List<String> sugerencias = dao.sugerirNombres(nom, 10);
+        if (!sugerencias.isEmpty()) {
+            System.out.println("Sugerencias:");
+            for (int i = 0; i < sugerencias.size(); i++)
+                System.out.println("  " + (i + 1) + ". " + sugerencias.get(i));
+            int elegida = leerInt("Número de sugerencia (Enter para buscar \"" + nom + "\"): ");
+            if (elegida >= 1 && elegida <= sugerencias.size())
+                nom = sugerencias.get(elegida - 1);
+        }
+        
+        List<ProductoElectronico> lista = dao.buscarPorNombre(nom);
+        
+        if (lista.isEmpty()) 
+            System.out.println("No se encontraron resultados");
+        else 
+            mostrar(lista);
+    }
+
+    // CONSULTA: FILTRAR PRODUCTOS CON STOCK BAJO
+    private static void listarStockBajo() {
+        int min = leerInt("Stock mínimo: ");
+        List<ProductoElectronico> lista = dao.listarStockBajo(min);
+        
+        if (lista.isEmpty()) 
+            System.out.println("No hay productos con stock bajo");
+        else 
+            mostrar(lista);
+    }
+
+    // CONSULTA: FILTRAR POR CATEGORÍA
+    private static void listarPorCategoria() {
+        String cat = leer("Categoría: ");
+        List<ProductoElectronico> lista = dao.listarPorCategoria(cat);
+        
+        if (lista.isEmpty()) 
+            System.out.println("No hay productos en esa categoría");
+        else 
+            mostrar(lista);
+    }
+
+    // INFORMES: ESTADÍSTICAS DEL INVENTARIO
+    private static void mostrarEstadisticas() {
+        List<ProductoElectronico> lista = dao.listarTodos();
+        
+        if (lista.isEmpty()) {
+            System.out.println("Inventario vacío.");
+            return;
+        }
+        
+        // Cálculos estadísticos
+        int total = dao.contarProductos();  // Total de productos
+        int stockTotal = lista.stream().mapToInt(ProductoElectronico::getStock).sum();  // Suma de stock
+        
+        // Valor total del inventario (precio * stock de cada producto)
+        BigDecimal valorTotal = lista.stream()
+                .map(p -> p.getPrecio().multiply(new BigDecimal(p.getStock())))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        // Mostrar resultados
+        System.out.println("Total productos: " + total);
+        System.out.println("Stock total: " + stockTotal);
+        System.out.println("Valor total: $" + valorTotal);
+        System.out.println("Cache de consultas: " + ProductoDAO.getEstadisticasCache());
+    }
+
+    // CONFIGURACIÓN: CAMBIAR ENTRE BASES DE DATOS
+    private static void cambiarBD() {
+        System.out.println("\n1. H2 (Embebida)");
+        System.out.println("2. Oracle (No embebida)");
+        int op = leerInt("Seleccione: ");
+        
+        if (op == 1) {
+            dao.cambiarTipoBD(TipoBD.H2);
+            dao.cargarIndiceNombres();
+            bdActual = "H2";
+            System.out.println("Cambiado a H2");
+        } else if (op == 2) {
+            dao.cambiarTipoBD(TipoBD.ORACLE);
+            dao.cargarIndiceNombres();
+            bdActual = "Oracle";
+            System.out.println("Cambiado a Oracle");
+        } else {
+            System.out.println("Opción inválida");
+        }
+    }
+
+    // MANTENIMIENTO: EXPORTAR LA TABLA A UN SNAPSHOT BINARIO
+    private static void exportarSnapshot() {
+        String archivo = leer("Archivo destino: ");
+        boolean comprimir = leer("¿Comprimir? (S/N): ").equalsIgnoreCase("S");
+        try {
+            long filas = new SnapshotInventario(dao).exportar(Paths.get(archivo),
+                    comprimir ? SnapshotInventario.Codec.DEFLATE : SnapshotInventario.Codec.NINGUNO);
+            System.out.println("Snapshot exportado: " + filas + " productos");
+        } catch (Exception e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+
+    // MANTENIMIENTO: RESTAURAR LA TABLA DESDE UN SNAPSHOT BINARIO
+    private static void restaurarSnapshot() {
+        String archivo = leer("Archivo origen: ");
+        // Conservar IDs exige la tabla vacía; si no, se añaden con IDs nuevos
+        boolean conservarIds = leer("¿Conservar IDs? (S/N): ").equalsIgnoreCase("S");
+        try {
+            long filas = new SnapshotInventario(dao).restaurar(Paths.get(archivo), conservarIds);
+            System.out.println("Snapshot restaurado: " + filas + " productos");
+        } catch (Exception e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+
+    // CONSULTA: PRODUCTOS POR FECHA DE INGRESO (de 20 en 20)
+    private static void listarPorFechas() {
+        try {
+            LocalDate desde = leerFecha("Desde (dd/MM/yyyy): ");
+            LocalDate hasta = leerFecha("Hasta (dd/MM/yyyy): ");
+            
+            // Cada página continúa tras el último producto de la anterior
+            ProductoElectronico ultimo = null;
+            int mostrados = 0;
+            while (true) {
+                List<ProductoElectronico> pagina = dao.listarPorRangoFechas(desde, hasta, ultimo, 20);
+                mostrar(pagina);
+                mostrados += pagina.size();
+                if (pagina.size() < 20 || !leer("Enter para ver más, N para terminar: ").isEmpty())
+                    break;
+                ultimo = pagina.get(pagina.size() - 1);
+            }
+            if (mostrados == 0)
+                System.out.println("No hay productos en esas fechas");
+        } catch (Exception e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+
+    // CONSULTA: HISTORIAL DE STOCK DE UN PRODUCTO O DE TODO EL INVENTARIO
+    private static void historialStock() {
+        try {
+            HistorialStock historial = new HistorialStock(dao);
+            historial.consolidarDias();  // Resume los movimientos nuevos
+            
+            int id = leerInt("ID del producto (Enter para todo el inventario): ");
+            LocalDate desde = leerFecha("Desde (dd/MM/yyyy): ");
+            LocalDate hasta = leerFecha("Hasta (dd/MM/yyyy): ");
+            
+            if (id > 0) {
+                System.out.println("\n--- MOVIMIENTOS ---");
+                historial.historialProducto(id, desde.atStartOfDay(), hasta.plusDays(1).atStartOfDay())
+                        .forEach(System.out::println);
+                System.out.println("\n--- RESUMEN DIARIO ---");
+                historial.resumenDiarioProducto(id, desde, hasta).forEach(System.out::println);
+            } else {
+                System.out.println("\n--- RESUMEN DIARIO DEL INVENTARIO ---");
+                historial.resumenDiario(desde, hasta).forEach(System.out::println);
+            }
+        } catch (Exception e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+
+    // MANTENIMIENTO: EXPORTAR EL LISTADO A UN ARCHIVO (tabla, CSV o JSON por líneas)
+    private static void exportarListado() {
+        System.out.println("1. Tabla alineada");
+        System.out.println("2. CSV");
+        System.out.println("3. JSON por líneas");
+        int op = leerInt("Formato: ");
+        if (op < 1 || op > 3) {
+            System.out.println("Opción inválida");
+            return;
+        }
+        InformeProductos.Formato formato = InformeProductos.Formato.values()[op - 1];
+        String archivo = leer("Archivo destino: ");
+        String desdeStr = leer("Desde (dd/MM/yyyy) [Enter para todos]: ");
+        
+        int filas;
+        try (InformeProductos informe = InformeProductos.archivo(Paths.get(archivo), formato)) {
+            if (desdeStr.isEmpty()) {
+                filas = dao.recorrerTodos(informe);
+            } else {
+                LocalDate desde = LocalDate.parse(desdeStr, DateTimeFormatter.ofPattern("dd/MM/yyyy"));
+                filas = dao.recorrerPorRangoFechas(desde, leerFecha("Hasta (dd/MM/yyyy): "), informe);
+            }
+        } catch (Exception e) {
+            System.out.println("Error: " + e.getMessage());
+            return;
+        }
+        System.out.println("Listado exportado: " + filas + " productos");
+    }
+
+    // MOSTRAR PRODUCTOS COMO TABLA (salida con búfer, sin un flush por línea)
+    private static void mostrar(List<ProductoElectronico> lista) {
+        try (InformeProductos informe = InformeProductos.consola(InformeProductos.Formato.TABLA)) {
+            informe.escribirTodos(lista);
+        } catch (IOException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+
+    // LEER FECHA EN FORMATO dd/MM/yyyy
+    private static LocalDate leerFecha(String msg) {
+        return LocalDate.parse(leer(msg), DateTimeFormatter.ofPattern("dd/MM/yyyy"));
+    }
+
+    // LEER TEXTO DEL USUARIO
+    private static String leer(String msg) {
+        System.out.print(msg);
+        return sc.nextLine();
+    }
 }
\ No newline at end of file
@@ -1,131 +1,220 @@
-package conexion;
-
-import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.SQLException;
-import java.sql.Statement;
-
-/**
- * Clase para gestionar las conexiones a ambas bases de datos
- */
-public class ConexionManager {
-    
-    // Configuración H2 (Embebida)
-    private static final String H2_URL = "jdbc:h2:~/inventario_h2;DB_CLOSE_DELAY=-1;AUTO_SERVER=TRUE";
-    private static final String H2_USER = "Alejandro";
-    private static final String H2_PASSWORD = "";
-    
-    // Configuración Oracle (No embebida)
-    // Ajusta estos valores según tu instalación de Oracle
-    private static final String ORACLE_URL = "jdbc:oracle:thin:@localhost:1521/XEPDB1";
-    private static final String ORACLE_USER = "System";
-    private static final String ORACLE_PASSWORD = "1234";
-    
-    /**
-     * Obtiene conexión a H2
-     */
-    public static Connection getConexionH2() throws SQLException {
-        try {
-            Class.forName("org.h2.Driver");
-            return DriverManager.getConnection(H2_URL, H2_USER, H2_PASSWORD);
-        } catch (ClassNotFoundException e) {
-            throw new SQLException("Driver H2 no encontrado", e);
-        }
-    }
-    
-    /**
-     * Obtiene conexión a Oracle
-     */
-    public static Connection getConexionOracle() throws SQLException {
-        try {
-            Class.forName("oracle.jdbc.driver.OracleDriver");
-            return DriverManager.getConnection(ORACLE_URL, ORACLE_USER, ORACLE_PASSWORD);
-        } catch (ClassNotFoundException e) {
-            throw new SQLException("Driver Oracle no encontrado", e);
-        }
-    }
-    
-    /**
-     * Crea la tabla en H2 si no existe
-     */
-    public static void crearTablaH2() throws SQLException {
-        String sql = "CREATE TABLE IF NOT EXISTS productos_electronicos (" +
-                    "id INT AUTO_INCREMENT PRIMARY KEY, " +
-                    "nombre VARCHAR(100) NOT NULL, " +
-                    "categoria VARCHAR(50) NOT NULL, " +
-                    "precio DECIMAL(10,2) NOT NULL, " +
-                    "stock INT NOT NULL, " +
-                    "fecha_ingreso DATE NOT NULL)";
-        
-        try (Connection conn = getConexionH2();
-            Statement stmt = conn.createStatement()) {
-            stmt.execute(sql);
-            System.out.println("Tabla creada/verificada en H2");
-        }
-    }
-    
-    /**
-     * Crea la tabla en Oracle si no existe
-     */
-    public static void crearTablaOracle() throws SQLException {
-        // Primero verificar si existe
-        String checkTable = "SELECT COUNT(*) FROM user_tables WHERE table_name = 'PRODUCTOS_ELECTRONICOS'";
-        String dropSeq = "DROP SEQUENCE productos_seq";
-        String createSeq = "CREATE SEQUENCE productos_seq START WITH 1 INCREMENT BY 1";
-        String createTable = "CREATE TABLE productos_electronicos (" +
-                            "id NUMBER PRIMARY KEY, " +
-                            "nombre VARCHAR2(100) NOT NULL, " +
-                            "categoria VARCHAR2(50) NOT NULL, " +
-                            "precio NUMBER(10,2) NOT NULL, " +
-                            "stock NUMBER NOT NULL, " +
-                            "fecha_ingreso DATE NOT NULL)";
-        
-        try (Connection conn = getConexionOracle();
-            Statement stmt = conn.createStatement()) {
-            
-            try {
-                stmt.execute("DROP TABLE productos_electronicos");
-                System.out.println("Tabla anterior eliminada en Oracle");
-            } catch (SQLException e) {
-                // Tabla no existe, continuar
-            }
-            
-            try {
-                stmt.execute(dropSeq);
-            } catch (SQLException e) {
-                // Secuencia no existe, continuar
-            }
-            
-            stmt.execute(createTable);
-            stmt.execute(createSeq);
-            System.out.println("Tabla y secuencia creadas en Oracle");
-        }
-    }
-    
-    /**
-     * Inicializa ambas bases de datos
-     */
-    public static void inicializarBD() {
-        try {
-            crearTablaH2();
-            crearTablaOracle();
-            System.out.println("\n=== Bases de datos inicializadas correctamente ===\n");
-        } catch (SQLException e) {
-            System.err.println("Error al inicializar bases de datos: " + e.getMessage());
-            e.printStackTrace();
-        }
-    }
-    
-    /**
-     * Cierra una conexión de forma segura
-     */
-    public static void cerrarConexion(Connection conn) {
-        if (conn != null) {
-            try {
-                conn.close();
-            } catch (SQLException e) {
-                System.err.println("Error al cerrar conexión: " + e.getMessage());
-            }
-        }
-    }
+package conexion;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Clase para gestionar las conexiones a ambas bases de datos
+ */
+public class ConexionManager {
+    
+    // Configuración H2 (Embebida)
+    // Se puede apuntar a otra BD con -Dinventario.h2.url=... (pruebas de carga, entornos de prueba)
+    private static final String H2_URL = System.getProperty("inventario.h2.url",
+            "jdbc:h2:~/inventario_h2;DB_CLOSE_DELAY=-1;AUTO_SERVER=TRUE");
+    private static final String H2_USER = "Alejandro";
+    private static final String H2_PASSWORD = "";
+    
+    // Configuración Oracle (No embebida)
+    // Ajusta estos valores según tu instalación de Oracle
+    private static final String ORACLE_URL = "jdbc:oracle:thin:@localhost:1521/XEPDB1";
+    private static final String ORACLE_USER = "System";
+    private static final String ORACLE_PASSWORD = "1234";
+    
+    // Índices comunes a H2 y Oracle para las consultas por fechas e historial de stock
+    private static final String[] INDICES_FECHAS = {
+        "CREATE INDEX idx_productos_fecha ON productos_electronicos (fecha_ingreso, id)",
+        "CREATE INDEX idx_movimientos_fecha ON movimientos_stock (fecha, id)",
+        "CREATE INDEX idx_movimientos_producto ON movimientos_stock (producto_id, fecha)",
+        "CREATE INDEX idx_resumen_producto ON resumen_stock_diario (producto_id, dia)"
+    };
+    
+    /**
+     * Obtiene conexión a H2
+     */
+    public static Connection getConexionH2() throws SQLException {
+        return getConexionH2(H2_URL);
+    }
+    
+    /**
+     * Obtiene conexión a otra BD H2 (réplica de lectura, pruebas)
+     */
+    public static Connection getConexionH2(String url) throws SQLException {
+        try {
+            Class.forName("org.h2.Driver");
+            return DriverManager.getConnection(url, H2_USER, H2_PASSWORD);
+        } catch (ClassNotFoundException e) {
+            throw new SQLException("Driver H2 no encontrado", e);
+        }
+    }
+    
+    /**
+     * Obtiene conexión a Oracle
+     */
+    public static Connection getConexionOracle() throws SQLException {
+        try {
+            Class.forName("oracle.jdbc.driver.OracleDriver");
+            return DriverManager.getConnection(ORACLE_URL, ORACLE_USER, ORACLE_PASSWORD);
+        } catch (ClassNotFoundException e) {
+            throw new SQLException("Driver Oracle no encontrado", e);
+        }
+    }
+    
+    /**
+     * Crea la tabla en H2 si no existe
+     */
+    public static void crearTablaH2() throws SQLException {
+        crearTablaH2(H2_URL);
+    }
+    
+    /**
+     * Crea la tabla en la BD H2 indicada si no existe
+     */
+    public static void crearTablaH2(String url) throws SQLException {
+        String sql = "CREATE TABLE IF NOT EXISTS productos_electronicos (" +
+                    "id INT AUTO_INCREMENT PRIMARY KEY, " +
+                    "nombre VARCHAR(100) NOT NULL, " +
+                    "categoria VARCHAR(50) NOT NULL, " +
+                    "precio DECIMAL(10,2) NOT NULL, " +
+                    "stock INT NOT NULL, " +
+                    "fecha_ingreso DATE NOT NULL)";
+        String sqlMovimientos = "CREATE TABLE IF NOT EXISTS movimientos_stock (" +
+                    "id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                    "producto_id INT NOT NULL, " +
+                    "fecha TIMESTAMP NOT NULL, " +
+                    "dia DATE NOT NULL, " +
+                    "tipo VARCHAR(10) NOT NULL, " +
+                    "stock_anterior INT NOT NULL, " +
+                    "stock_nuevo INT NOT NULL)";
+        String sqlResumen = "CREATE TABLE IF NOT EXISTS resumen_stock_diario (" +
+                    "dia DATE NOT NULL, " +
+                    "producto_id INT NOT NULL, " +
+                    "entradas BIGINT NOT NULL, " +
+                    "salidas BIGINT NOT NULL, " +
+                    "movimientos BIGINT NOT NULL, " +
+                    "stock_final INT NOT NULL, " +
+                    "PRIMARY KEY (dia, producto_id))";
+        String sqlConsolidacion = "CREATE TABLE IF NOT EXISTS consolidacion_stock (" +
+                    "id INT PRIMARY KEY, " +
+                    "ultimo_movimiento BIGINT NOT NULL)";
+        // Fila única con el último movimiento consolidado; en una BD que ya tenía resúmenes
+        // (consolidados por días completos) parte del último movimiento de esos días
+        String sqlMarca = "INSERT INTO consolidacion_stock (id, ultimo_movimiento) " +
+                    "SELECT 1, COALESCE((SELECT MAX(id) FROM movimientos_stock " +
+                    "WHERE dia <= (SELECT MAX(dia) FROM resumen_stock_diario)), 0) FROM DUAL " +
+                    "WHERE NOT EXISTS (SELECT 1 FROM consolidacion_stock)";
+        
+        try (Connection conn = getConexionH2(url);
+            Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+            stmt.execute(sqlMovimientos);
+            stmt.execute(sqlResumen);
+            stmt.execute(sqlConsolidacion);
+            stmt.execute(sqlMarca);
+            // Índices para que las consultas por rango de fechas lean solo ese tramo
+            for (String indice : INDICES_FECHAS) {
+                stmt.execute(indice.replace("CREATE INDEX", "CREATE INDEX IF NOT EXISTS"));
+            }
+            System.out.println("Tabla creada/verificada en H2");
+        }
+    }
+    
+    /**
+     * Crea la tabla en Oracle si no existe
+     */
+    public static void crearTablaOracle() throws SQLException {
+        // Primero verificar si existe
+        String checkTable = "SELECT COUNT(*) FROM user_tables WHERE table_name = 'PRODUCTOS_ELECTRONICOS'";
+        String dropSeq = "DROP SEQUENCE productos_seq";
+        String createSeq = "CREATE SEQUENCE productos_seq START WITH 1 INCREMENT BY 1";
+        String createTable = "CREATE TABLE productos_electronicos (" +
+                            "id NUMBER PRIMARY KEY, " +
+                            "nombre VARCHAR2(100) NOT NULL, " +
+                            "categoria VARCHAR2(50) NOT NULL, " +
+                            "precio NUMBER(10,2) NOT NULL, " +
+                            "stock NUMBER NOT NULL, " +
+                            "fecha_ingreso DATE NOT NULL)";
+        String createSeqMovimientos = "CREATE SEQUENCE movimientos_seq START WITH 1 INCREMENT BY 1";
+        String createMovimientos = "CREATE TABLE movimientos_stock (" +
+                            "id NUMBER(19) PRIMARY KEY, " +
+                            "producto_id NUMBER NOT NULL, " +
+                            "fecha TIMESTAMP NOT NULL, " +
+                            "dia DATE NOT NULL, " +
+                            "tipo VARCHAR2(10) NOT NULL, " +
+                            "stock_anterior NUMBER NOT NULL, " +
+                            "stock_nuevo NUMBER NOT NULL)";
+        String createResumen = "CREATE TABLE resumen_stock_diario (" +
+                            "dia DATE NOT NULL, " +
+                            "producto_id NUMBER NOT NULL, " +
+                            "entradas NUMBER(19) NOT NULL, " +
+                            "salidas NUMBER(19) NOT NULL, " +
+                            "movimientos NUMBER(19) NOT NULL, " +
+                            "stock_final NUMBER NOT NULL, " +
+                            "PRIMARY KEY (dia, producto_id))";
+        String createConsolidacion = "CREATE TABLE consolidacion_stock (" +
+                            "id NUMBER PRIMARY KEY, " +
+                            "ultimo_movimiento NUMBER(19) NOT NULL)";
+        
+        try (Connection conn = getConexionOracle();
+            Statement stmt = conn.createStatement()) {
+            
+            try {
+                stmt.execute("DROP TABLE productos_electronicos");
+                System.out.println("Tabla anterior eliminada en Oracle");
+            } catch (SQLException e) {
+                // Tabla no existe, continuar
+            }
+            
+            for (String drop : new String[] {dropSeq, "DROP TABLE movimientos_stock",
+                    "DROP TABLE resumen_stock_diario", "DROP TABLE consolidacion_stock",
+                    "DROP SEQUENCE movimientos_seq"}) {
+                try {
+                    stmt.execute(drop);
+                } catch (SQLException e) {
+                    // Tabla o secuencia no existe, continuar
+                }
+            }
+            
+            stmt.execute(createTable);
+            stmt.execute(createSeq);
+            stmt.execute(createMovimientos);
+            stmt.execute(createResumen);
+            stmt.execute(createConsolidacion);
+            stmt.execute("INSERT INTO consolidacion_stock (id, ultimo_movimiento) VALUES (1, 0)");
+            stmt.execute(createSeqMovimientos);
+            for (String indice : INDICES_FECHAS) {
+                stmt.execute(indice);
+            }
+            System.out.println("Tabla y secuencia creadas en Oracle");
+        }
+    }
+    
+    /**
+     * Inicializa ambas bases de datos
+     */
+    public static void inicializarBD() {
+        try {
+            crearTablaH2();
+            crearTablaOracle();
+            System.out.println("\n=== Bases de datos inicializadas correctamente ===\n");
+        } catch (SQLException e) {
+            System.err.println("Error al inicializar bases de datos: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+    
+    /**
+     * Cierra una conexión de forma segura
+     */
+    public static void cerrarConexion(Connection conn) {
+        if (conn != null) {
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                System.err.println("Error al cerrar conexión: " + e.getMessage());
+            }
+        }
+    }
 }
\ No newline at end of file
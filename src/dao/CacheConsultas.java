@@ -0,0 +1,201 @@
+package dao;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import modelo.ProductoElectronico;
+
+/**
+ * Cache de resultados para las consultas de listas (categoría y nombre)
+ *
+ * Cada entrada guarda la versión de los datos con la que se calculó. Las escrituras
+ * del DAO suben la versión de la tabla o de la categoría afectada, y una entrada cuya
+ * versión ya no coincide se descarta al leerla, así nunca se devuelven datos antiguos.
+ * La versión se debe leer ANTES de consultar la BD y subir DESPUÉS de confirmar la escritura.
+ *
+ * El tamaño se limita por número total de filas guardadas, desalojando las menos usadas.
+ * Solo ve las escrituras hechas desde esta JVM a través de ProductoDAO.
+ */
+public class CacheConsultas {
+
+    // Reloj común: todas las versiones salen de aquí, así que siempre crecen
+    private final AtomicLong reloj = new AtomicLong();
+    // Por origen de datos (ver ProductoDAO.getOrigen)
+    private final Map<String, Versiones> versiones = new ConcurrentHashMap<>();
+
+    private final int maxFilas;
+    private final LinkedHashMap<Clave, Entrada> entradas = new LinkedHashMap<>(64, 0.75f, true);
+    private int filasGuardadas;
+
+    private long aciertos;
+    private long fallos;
+    private long invalidadas;
+    private long desalojadas;
+
+    public CacheConsultas(int maxFilas) {
+        this.maxFilas = maxFilas;
+    }
+
+    /**
+     * Versión de la que dependen las búsquedas por nombre: cambia con cualquier escritura
+     */
+    public long versionTabla(String origen) {
+        return versiones(origen).tabla;
+    }
+
+    /**
+     * Versión de la que depende el listado de una categoría (ya normalizada)
+     */
+    public long versionCategoria(String origen, String categoria) {
+        Versiones v = versiones(origen);
+        return Math.max(v.categorias, v.porCategoria.getOrDefault(categoria, 0L));
+    }
+
+    /**
+     * Escrituras confirmadas en el origen desde el arranque (la réplica de lectura lo usa
+     * para detectar escrituras que no le han llegado)
+     */
+    public long escrituras(String origen) {
+        return versiones(origen).escrituras.sum();
+    }
+
+    /**
+     * Una inserción solo afecta a su categoría y a las búsquedas por nombre
+     */
+    public void registrarInsercion(String origen, String categoria) {
+        Versiones v = versiones(origen);
+        v.escrituras.increment();
+        long nueva = reloj.incrementAndGet();
+        v.porCategoria.put(categoria, nueva);
+        v.tabla = nueva;
+    }
+
+    /**
+     * Actualización o borrado con categorías conocidas (la anterior y la nueva, ya normalizadas):
+     * solo se invalidan esas categorías y las búsquedas por nombre
+     */
+    public void registrarCambioEnCategorias(String origen, String... categorias) {
+        Versiones v = versiones(origen);
+        v.escrituras.increment();
+        long nueva = reloj.incrementAndGet();
+        for (String categoria : categorias) {
+            v.porCategoria.put(categoria, nueva);
+        }
+        v.tabla = nueva;
+    }
+
+    /**
+     * Cambios cuya categoría anterior no se conoce (réplica, snapshots): se invalida todo
+     */
+    public void registrarCambio(String origen) {
+        Versiones v = versiones(origen);
+        v.escrituras.increment();
+        long nueva = reloj.incrementAndGet();
+        v.categorias = nueva;
+        v.tabla = nueva;
+        // porCategoria no se vacía: una escritura concurrente puede haber guardado ya una
+        // versión mayor que esta, y versionCategoria() toma el máximo de ambas
+    }
+
+    /**
+     * Devuelve una copia del resultado guardado o null si no hay uno válido para esa versión
+     */
+    public synchronized List<ProductoElectronico> obtener(String origen, String consulta,
+                                                          String argumento, long version) {
+        Clave clave = new Clave(origen, consulta, argumento);
+        Entrada entrada = entradas.get(clave);
+        if (entrada == null) {
+            fallos++;
+            return null;
+        }
+        if (entrada.version != version) {
+            entradas.remove(clave);
+            filasGuardadas -= entrada.peso();
+            invalidadas++;
+            fallos++;
+            return null;
+        }
+        aciertos++;
+        return copiar(entrada.filas);
+    }
+
+    /**
+     * Guarda un resultado calculado con la versión indicada
+     * Los resultados muy grandes no se guardan para no vaciar la cache de golpe.
+     */
+    public synchronized void guardar(String origen, String consulta, String argumento,
+                                     long version, List<ProductoElectronico> filas) {
+        Entrada nueva = new Entrada(version, copiar(filas));
+        if (nueva.peso() > maxFilas / 4) {
+            return;
+        }
+        Entrada anterior = entradas.put(new Clave(origen, consulta, argumento), nueva);
+        if (anterior != null) {
+            filasGuardadas -= anterior.peso();
+        }
+        filasGuardadas += nueva.peso();
+
+        Iterator<Entrada> it = entradas.values().iterator();
+        while (filasGuardadas > maxFilas && it.hasNext()) {
+            filasGuardadas -= it.next().peso();
+            it.remove();
+            desalojadas++;
+        }
+    }
+
+    public synchronized void vaciar() {
+        entradas.clear();
+        filasGuardadas = 0;
+    }
+
+    public synchronized double getTasaAciertos() {
+        long total = aciertos + fallos;
+        return total == 0 ? 0 : (double) aciertos / total;
+    }
+
+    /**
+     * Resumen de uso para mostrar en las estadísticas
+     */
+    public synchronized String resumen() {
+        return String.format("%d aciertos, %d fallos (%.1f%% aciertos), %d invalidadas, %d desalojadas, " +
+                "%d filas en %d entradas (máx. %d)", aciertos, fallos, getTasaAciertos() * 100,
+                invalidadas, desalojadas, filasGuardadas, entradas.size(), maxFilas);
+    }
+
+    private Versiones versiones(String origen) {
+        return versiones.computeIfAbsent(origen, o -> new Versiones());
+    }
+
+    /**
+     * Copia los productos para que quien llama no pueda modificar lo guardado
+     */
+    private static List<ProductoElectronico> copiar(List<ProductoElectronico> filas) {
+        List<ProductoElectronico> copia = new ArrayList<>(filas.size());
+        for (ProductoElectronico p : filas) {
+            copia.add(new ProductoElectronico(p.getId(), p.getNombre(), p.getCategoria(),
+                    p.getPrecio(), p.getStock(), p.getFechaIngreso()));
+        }
+        return copia;
+    }
+
+    private static class Versiones {
+        volatile long tabla;
+        volatile long categorias;
+        final Map<String, Long> porCategoria = new ConcurrentHashMap<>();
+        final LongAdder escrituras = new LongAdder();
+    }
+
+    private record Clave(String origen, String consulta, String argumento) {
+    }
+
+    private record Entrada(long version, List<ProductoElectronico> filas) {
+        int peso() {
+            return filas.size() + 1;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package dao;
+
+import conexion.ConexionManager;
+import dao.ProductoDAO.TipoBD;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Commit agrupado (opcional): junta transacciones pequeñas de varios hilos
+ * y las confirma con un solo commit, reduciendo las escrituras a disco
+ *
+ * Un hilo propio ejecuta las transacciones pendientes una tras otra sobre la misma
+ * conexión, cada una dentro de un savepoint para que un fallo solo deshaga la suya,
+ * y después hace un único commit. Quien llama a ejecutar() espera hasta ese commit.
+ * Cuantas más transacciones llegan a la vez, mayores son los lotes.
+ */
+public class GrupoCommit implements AutoCloseable {
+
+    private final ProductoDAO dao;
+    private final int maxLote;
+    private final long esperaMicros;
+    private final BlockingQueue<Pendiente<?>> cola = new LinkedBlockingQueue<>();
+    private final Thread hilo;
+    private volatile boolean cerrado;
+
+    private final AtomicLong lotes = new AtomicLong();
+    private final AtomicLong transacciones = new AtomicLong();
+
+    /**
+     * @param maxLote      transacciones como máximo por commit
+     * @param esperaMicros tiempo extra que se espera a que lleguen más (0 = solo las ya encoladas)
+     */
+    public GrupoCommit(TipoBD tipo, int maxLote, long esperaMicros) {
+        this(new ProductoDAO(tipo), maxLote, esperaMicros);
+    }
+
+    /**
+     * Grupo sobre la BD de un DAO concreto; no se debe cambiar su TipoBD mientras se usa
+     */
+    public GrupoCommit(ProductoDAO dao, int maxLote, long esperaMicros) {
+        this.dao = dao;
+        this.maxLote = maxLote;
+        this.esperaMicros = esperaMicros;
+        this.hilo = new Thread(this::procesar, "grupo-commit-" + dao.getOrigen());
+        this.hilo.setDaemon(true);
+        this.hilo.start();
+    }
+
+    /**
+     * Ejecuta el trabajo en el siguiente lote y espera a que se confirme
+     * @throws SQLException si el trabajo falla o el commit del lote no se puede hacer
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T ejecutar(Transaccion.Trabajo<T> trabajo) throws SQLException {
+        if (cerrado) {
+            throw new SQLException("El grupo de commit está cerrado");
+        }
+        Pendiente<T> pendiente = new Pendiente<>(trabajo);
+        cola.add(pendiente);
+        try {
+            return (T) pendiente.resultado.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrumpido esperando el commit", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException sql) {
+                throw sql;
+            }
+            throw new SQLException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Resumen de uso: transacciones confirmadas por cada commit
+     */
+    public String resumen() {
+        long l = lotes.get();
+        long t = transacciones.get();
+        return String.format("%d transacciones en %d commits (%.1f por commit)", t, l, l == 0 ? 0.0 : (double) t / l);
+    }
+
+    @Override
+    public void close() {
+        cerrado = true;
+        hilo.interrupt();
+        try {
+            hilo.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Pendiente<?> p;
+        while ((p = cola.poll()) != null) {
+            p.resultado.completeExceptionally(new SQLException("El grupo de commit está cerrado"));
+        }
+    }
+
+    private void procesar() {
+        Connection conn = null;
+        List<Pendiente<?>> lote = new ArrayList<>(maxLote);
+        while (!cerrado) {
+            try {
+                lote.add(cola.take());
+                cola.drainTo(lote, maxLote - lote.size());
+                if (esperaMicros > 0 && lote.size() < maxLote) {
+                    Pendiente<?> otra = cola.poll(esperaMicros, TimeUnit.MICROSECONDS);
+                    if (otra != null) {
+                        lote.add(otra);
+                        cola.drainTo(lote, maxLote - lote.size());
+                    }
+                }
+            } catch (InterruptedException e) {
+                break;
+            }
+
+            try {
+                if (conn == null || conn.isClosed()) {
+                    conn = dao.abrirConexion();
+                    conn.setAutoCommit(false);
+                }
+                confirmarLote(conn, lote);
+            } catch (SQLException e) {
+                for (Pendiente<?> p : lote) {
+                    p.resultado.completeExceptionally(e);
+                }
+                ConexionManager.cerrarConexion(conn);
+                conn = null;
+            }
+            lote.clear();
+        }
+        for (Pendiente<?> p : lote) {
+            p.resultado.completeExceptionally(new SQLException("El grupo de commit está cerrado"));
+        }
+        ConexionManager.cerrarConexion(conn);
+    }
+
+    /**
+     * Ejecuta cada transacción en su savepoint y confirma todas con un commit
+     */
+    private void confirmarLote(Connection conn, List<Pendiente<?>> lote) throws SQLException {
+        List<Object> resultados = new ArrayList<>(lote.size());
+        List<Throwable> errores = new ArrayList<>(lote.size());
+        List<Runnable> alConfirmar = new ArrayList<>();
+
+        for (Pendiente<?> p : lote) {
+            Savepoint sp = conn.setSavepoint();
+            Object resultado = null;
+            Throwable error = null;
+            try (Transaccion tx = Transaccion.asociar(dao.getOrigen(), conn)) {
+                resultado = p.trabajo.ejecutar(dao);
+                if (tx.isFallida()) {
+                    error = new SQLException("La transacción tuvo errores y se ha deshecho");
+                } else {
+                    alConfirmar.addAll(tx.getAccionesAlConfirmar());
+                }
+            } catch (SQLException | RuntimeException e) {
+                error = e;
+            }
+            if (error != null) {
+                conn.rollback(sp);
+            }
+            resultados.add(resultado);
+            errores.add(error);
+        }
+
+        try {
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        }
+        lotes.incrementAndGet();
+        transacciones.addAndGet(lote.size());
+        alConfirmar.forEach(Runnable::run);
+
+        for (int i = 0; i < lote.size(); i++) {
+            if (errores.get(i) != null) {
+                lote.get(i).resultado.completeExceptionally(errores.get(i));
+            } else {
+                lote.get(i).resultado.complete(resultados.get(i));
+            }
+        }
+    }
+
+    private static class Pendiente<T> {
+        final Transaccion.Trabajo<T> trabajo;
+        final CompletableFuture<Object> resultado = new CompletableFuture<>();
+
+        Pendiente(Transaccion.Trabajo<T> trabajo) {
+            this.trabajo = trabajo;
+        }
+    }
+}
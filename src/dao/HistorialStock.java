@@ -0,0 +1,256 @@
+package dao;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import modelo.MovimientoStock;
+import modelo.ResumenStockDiario;
+
+/**
+ * Consultas sobre el historial de stock (movimientos_stock) y sus resúmenes diarios
+ *
+ * ProductoDAO añade un movimiento en cada alta, cambio de stock o baja. consolidarDias()
+ * suma los movimientos nuevos a resumen_stock_diario (una fila por día y producto) y guarda
+ * en consolidacion_stock el ID del último movimiento incluido. Los informes leen los
+ * resúmenes y solo agregan los movimientos posteriores a esa marca, así un movimiento
+ * que se confirma tarde en un día ya resumido se cuenta igual. Todas las consultas van
+ * por índice al tramo pedido.
+ */
+public class HistorialStock {
+
+    // Antigüedad mínima de un movimiento para consolidarlo: los IDs se asignan al insertar,
+    // y una transacción aún abierta puede confirmar después un ID menor que otro ya consolidado
+    private static final long MARGEN_CONSOLIDAR_MINUTOS = 10;
+
+    // Agrega movimientos por día y producto; stock_final es el del último movimiento del día
+    private static final String SQL_AGREGAR_MOVIMIENTOS =
+            "SELECT g.dia, g.producto_id, g.entradas, g.salidas, g.movimientos, m.stock_nuevo AS stock_final " +
+            "FROM (SELECT dia, producto_id, " +
+            "SUM(CASE WHEN stock_nuevo > stock_anterior THEN stock_nuevo - stock_anterior ELSE 0 END) AS entradas, " +
+            "SUM(CASE WHEN stock_nuevo < stock_anterior THEN stock_anterior - stock_nuevo ELSE 0 END) AS salidas, " +
+            "COUNT(*) AS movimientos, MAX(id) AS ultimo " +
+            "FROM movimientos_stock WHERE %s " +
+            "GROUP BY dia, producto_id) g " +
+            "JOIN movimientos_stock m ON m.id = g.ultimo";
+
+    private static final String SQL_ULTIMO_CONSOLIDADO =
+            "(SELECT ultimo_movimiento FROM consolidacion_stock WHERE id = 1)";
+
+    private final ProductoDAO dao;
+
+    public HistorialStock(ProductoDAO dao) {
+        this.dao = dao;
+    }
+
+    /**
+     * Página de movimientos con fecha en [desde, hasta), ordenados por fecha
+     * @param despuesDe último movimiento de la página anterior, o null para la primera
+     */
+    public List<MovimientoStock> listarMovimientos(LocalDateTime desde, LocalDateTime hasta,
+            MovimientoStock despuesDe, int limite) throws SQLException {
+        // Con despuesDe el índice empieza en su fecha, no en desde (ver ProductoDAO.listarPorRangoFechas)
+        String sql = "SELECT * FROM movimientos_stock WHERE fecha >= ? AND fecha < ? " +
+                    (despuesDe != null ? "AND (fecha > ? OR (fecha = ? AND id > ?)) " : "") +
+                    "ORDER BY fecha, id FETCH FIRST ? ROWS ONLY";
+
+        try (Connection conn = dao.obtenerConexion();
+            PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            int i = 1;
+            pstmt.setTimestamp(i++, Timestamp.valueOf(despuesDe != null ? despuesDe.getFecha() : desde));
+            pstmt.setTimestamp(i++, Timestamp.valueOf(hasta));
+            if (despuesDe != null) {
+                pstmt.setTimestamp(i++, Timestamp.valueOf(despuesDe.getFecha()));
+                pstmt.setTimestamp(i++, Timestamp.valueOf(despuesDe.getFecha()));
+                pstmt.setLong(i++, despuesDe.getId());
+            }
+            pstmt.setInt(i, limite);
+            return leerMovimientos(pstmt);
+        }
+    }
+
+    /**
+     * Movimientos de un producto con fecha en [desde, hasta), en orden
+     */
+    public List<MovimientoStock> historialProducto(int productoId, LocalDateTime desde,
+            LocalDateTime hasta) throws SQLException {
+        String sql = "SELECT * FROM movimientos_stock " +
+                    "WHERE producto_id = ? AND fecha >= ? AND fecha < ? ORDER BY fecha, id";
+
+        try (Connection conn = dao.obtenerConexion();
+            PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, productoId);
+            pstmt.setTimestamp(2, Timestamp.valueOf(desde));
+            pstmt.setTimestamp(3, Timestamp.valueOf(hasta));
+            return leerMovimientos(pstmt);
+        }
+    }
+
+    /**
+     * Suma a resumen_stock_diario los movimientos posteriores al último consolidado
+     * Se puede llamar desde varias sesiones a la vez: la fila de consolidacion_stock se
+     * bloquea hasta el commit, así que la segunda espera y solo ve lo que quede pendiente.
+     * @return filas (día y producto) añadidas o actualizadas
+     */
+    public int consolidarDias() throws SQLException {
+        Timestamp limite = Timestamp.valueOf(LocalDateTime.now().minusMinutes(MARGEN_CONSOLIDAR_MINUTOS));
+        String sqlFusion = "MERGE INTO resumen_stock_diario r USING (" +
+                    String.format(SQL_AGREGAR_MOVIMIENTOS, "id > ? AND id <= ? ") + ") a " +
+                    "ON (r.dia = a.dia AND r.producto_id = a.producto_id) " +
+                    "WHEN MATCHED THEN UPDATE SET r.entradas = r.entradas + a.entradas, " +
+                    "r.salidas = r.salidas + a.salidas, r.movimientos = r.movimientos + a.movimientos, " +
+                    "r.stock_final = a.stock_final " +
+                    "WHEN NOT MATCHED THEN INSERT (dia, producto_id, entradas, salidas, movimientos, stock_final) " +
+                    "VALUES (a.dia, a.producto_id, a.entradas, a.salidas, a.movimientos, a.stock_final)";
+
+        try (Connection conn = dao.obtenerConexion()) {
+            return ProductoDAO.atomico(conn, () -> {
+                long desde = leerId(conn, "SELECT ultimo_movimiento FROM consolidacion_stock WHERE id = 1 FOR UPDATE");
+                long hasta;
+                try (PreparedStatement pstmt = conn.prepareStatement(
+                        "SELECT COALESCE(MAX(id), 0) FROM movimientos_stock WHERE id > ? AND fecha < ?")) {
+                    pstmt.setLong(1, desde);
+                    pstmt.setTimestamp(2, limite);
+                    hasta = leerId(pstmt);
+                }
+                if (hasta <= desde) {
+                    return 0;
+                }
+
+                int filas;
+                // Cada lote solo tiene IDs mayores que los ya sumados: su último movimiento
+                // del día es también el último de la fila resumida
+                try (PreparedStatement pstmt = conn.prepareStatement(sqlFusion)) {
+                    pstmt.setLong(1, desde);
+                    pstmt.setLong(2, hasta);
+                    filas = pstmt.executeUpdate();
+                }
+                try (PreparedStatement pstmt = conn.prepareStatement(
+                        "UPDATE consolidacion_stock SET ultimo_movimiento = ? WHERE id = 1")) {
+                    pstmt.setLong(1, hasta);
+                    pstmt.executeUpdate();
+                }
+                return filas;
+            });
+        }
+    }
+
+    /**
+     * Entradas, salidas y movimientos de todo el inventario por día, entre dos fechas incluidas
+     */
+    public List<ResumenStockDiario> resumenDiario(LocalDate desde, LocalDate hasta) throws SQLException {
+        // Resúmenes más movimientos aún sin consolidar, en una sola sentencia para que
+        // ambos se lean con la misma marca de consolidación
+        String sql = "SELECT dia, SUM(entradas), SUM(salidas), SUM(movimientos) FROM (" +
+                    "SELECT dia, entradas, salidas, movimientos FROM resumen_stock_diario " +
+                    "WHERE dia >= ? AND dia <= ? " +
+                    "UNION ALL " +
+                    "SELECT dia, " +
+                    "SUM(CASE WHEN stock_nuevo > stock_anterior THEN stock_nuevo - stock_anterior ELSE 0 END), " +
+                    "SUM(CASE WHEN stock_nuevo < stock_anterior THEN stock_anterior - stock_nuevo ELSE 0 END), " +
+                    "COUNT(*) FROM movimientos_stock WHERE fecha >= ? AND fecha < ? " +
+                    "AND id > " + SQL_ULTIMO_CONSOLIDADO + " GROUP BY dia) t " +
+                    "GROUP BY dia ORDER BY dia";
+        List<ResumenStockDiario> resumen = new ArrayList<>();
+
+        try (Connection conn = dao.obtenerConexion();
+            PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setDate(1, Date.valueOf(desde));
+            pstmt.setDate(2, Date.valueOf(hasta));
+            pstmt.setTimestamp(3, Timestamp.valueOf(desde.atStartOfDay()));
+            pstmt.setTimestamp(4, Timestamp.valueOf(hasta.plusDays(1).atStartOfDay()));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    resumen.add(new ResumenStockDiario(rs.getDate(1).toLocalDate(), 0,
+                            rs.getLong(2), rs.getLong(3), rs.getLong(4), null));
+                }
+            }
+        }
+        return resumen;
+    }
+
+    /**
+     * Resumen diario de un producto, con su stock al final de cada día con movimientos
+     */
+    public List<ResumenStockDiario> resumenDiarioProducto(int productoId, LocalDate desde,
+            LocalDate hasta) throws SQLException {
+        // Un día puede tener fila resumida y movimientos posteriores sin consolidar:
+        // salen seguidos (pendiente = 1 después) y se combinan al leerlos
+        String sql = "SELECT dia, producto_id, entradas, salidas, movimientos, stock_final, 0 AS pendiente " +
+                    "FROM resumen_stock_diario WHERE producto_id = ? AND dia >= ? AND dia <= ? " +
+                    "UNION ALL " +
+                    "SELECT a.*, 1 FROM (" + String.format(SQL_AGREGAR_MOVIMIENTOS,
+                        "producto_id = ? AND fecha >= ? AND fecha < ? AND id > " + SQL_ULTIMO_CONSOLIDADO + " ") +
+                    ") a ORDER BY 1, 7";
+        List<ResumenStockDiario> resumen = new ArrayList<>();
+
+        try (Connection conn = dao.obtenerConexion();
+            PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, productoId);
+            pstmt.setDate(2, Date.valueOf(desde));
+            pstmt.setDate(3, Date.valueOf(hasta));
+            pstmt.setInt(4, productoId);
+            pstmt.setTimestamp(5, Timestamp.valueOf(desde.atStartOfDay()));
+            pstmt.setTimestamp(6, Timestamp.valueOf(hasta.plusDays(1).atStartOfDay()));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    ResumenStockDiario fila = new ResumenStockDiario(rs.getDate(1).toLocalDate(), rs.getInt(2),
+                            rs.getLong(3), rs.getLong(4), rs.getLong(5), rs.getInt(6));
+                    ResumenStockDiario anterior = resumen.isEmpty() ? null : resumen.get(resumen.size() - 1);
+                    if (anterior != null && anterior.getDia().equals(fila.getDia())) {
+                        fila = new ResumenStockDiario(fila.getDia(), productoId,
+                                anterior.getEntradas() + fila.getEntradas(),
+                                anterior.getSalidas() + fila.getSalidas(),
+                                anterior.getMovimientos() + fila.getMovimientos(), fila.getStockFinal());
+                        resumen.set(resumen.size() - 1, fila);
+                    } else {
+                        resumen.add(fila);
+                    }
+                }
+            }
+        }
+        return resumen;
+    }
+
+    private static long leerId(Connection conn, String sql) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            return leerId(pstmt);
+        }
+    }
+
+    private static long leerId(PreparedStatement pstmt) throws SQLException {
+        try (ResultSet rs = pstmt.executeQuery()) {
+            if (!rs.next()) {
+                throw new SQLException("Falta la fila de consolidacion_stock");
+            }
+            return rs.getLong(1);
+        }
+    }
+
+    private static List<MovimientoStock> leerMovimientos(PreparedStatement pstmt) throws SQLException {
+        List<MovimientoStock> movimientos = new ArrayList<>();
+        try (ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                movimientos.add(new MovimientoStock(
+                    rs.getLong("id"),
+                    rs.getInt("producto_id"),
+                    rs.getTimestamp("fecha").toLocalDateTime(),
+                    MovimientoStock.Tipo.valueOf(rs.getString("tipo")),
+                    rs.getInt("stock_anterior"),
+                    rs.getInt("stock_nuevo")
+                ));
+            }
+        }
+        return movimientos;
+    }
+}
@@ -0,0 +1,496 @@
+package dao;
+
+import java.sql.SQLException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Índice en memoria para autocompletar nombres de producto por prefijo
+ *
+ * Cada nombre se normaliza (minúsculas, sin tildes, palabras separadas por un espacio)
+ * y se indexa desde el inicio de cada palabra, así "16 pro" encuentra "iPhone 16 Pro".
+ * Las entradas son longs (posición del nombre y desplazamiento de la palabra) en un array
+ * ordenado, sin un String por palabra. Las escrituras van a un mapa ordenado pequeño y los
+ * borrados se marcan; cuando crecen demasiado se reconstruye el array.
+ */
+public class IndicePrefijos {
+
+    private static final int MIN_RECONSTRUIR = 10_000;
+    private static final int CAPACIDAD_INICIAL = 1024;
+
+    /**
+     * Origen de los datos para la carga completa del índice
+     */
+    @FunctionalInterface
+    public interface Fuente {
+        void leer(ObjIntConsumer<String> destino) throws SQLException;
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Datos por posición; un producto modificado ocupa una posición nueva
+    private int[] ids;
+    private String[] nombres;
+    private String[] normalizados;
+    private int posiciones;
+    private final BitSet borrados = new BitSet();
+    private int numBorrados;
+    private final MapaEnteros posicionPorId = new MapaEnteros();
+
+    // Entradas ordenadas: (posición << 8) | desplazamiento de la palabra
+    private long[] base;
+    // Entradas añadidas desde la última reconstrucción, por texto desde la palabra
+    private final TreeMap<String, Long> recientes = new TreeMap<>();
+
+    private boolean cargado;
+
+    public IndicePrefijos() {
+        vaciar();
+    }
+
+    public boolean isCargado() {
+        lock.readLock().lock();
+        try {
+            return cargado;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Carga el índice completo; las escrituras concurrentes esperan a que termine
+     */
+    public void cargar(Fuente fuente) throws SQLException {
+        lock.writeLock().lock();
+        try {
+            vaciar();
+            fuente.leer((nombre, id) -> {
+                String normalizado = normalizar(nombre);
+                if (!normalizado.isEmpty()) {
+                    borrarPosicion(posicionPorId.obtener(id));
+                    nuevaPosicion(id, nombre, normalizado);
+                }
+            });
+            reconstruir();
+            cargado = true;
+        } catch (SQLException | RuntimeException e) {
+            vaciar();
+            throw e;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Vacía el índice; se volverá a cargar desde la BD en el siguiente uso
+     */
+    public void descartar() {
+        lock.writeLock().lock();
+        try {
+            vaciar();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Añade o reemplaza el nombre de un producto
+     * Sin cargar no hace nada: la carga leerá el dato de la BD.
+     */
+    public void agregar(int id, String nombre) {
+        lock.writeLock().lock();
+        try {
+            if (!cargado) {
+                return;
+            }
+            borrarPosicion(posicionPorId.obtener(id));
+            String normalizado = normalizar(nombre);
+            if (!normalizado.isEmpty()) {
+                int pos = nuevaPosicion(id, nombre, normalizado);
+                for (int desp : inicioPalabras(normalizado)) {
+                    recientes.put(normalizado.substring(desp) + '\0' + pos, entrada(pos, desp));
+                }
+            }
+            reconstruirSiHaceFalta();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void eliminar(int id) {
+        lock.writeLock().lock();
+        try {
+            if (!cargado) {
+                return;
+            }
+            borrarPosicion(posicionPorId.obtener(id));
+            reconstruirSiHaceFalta();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Nombres distintos con alguna palabra que empiece por el prefijo, en orden alfabético
+     * desde esa palabra
+     */
+    public List<String> sugerir(String prefijo, int limite) {
+        String buscado = normalizar(prefijo);
+        if (buscado.isEmpty() || limite <= 0) {
+            return new ArrayList<>();
+        }
+
+        lock.readLock().lock();
+        try {
+            Set<String> vistos = new LinkedHashSet<>();
+            int i = primeraEntrada(buscado);
+            Iterator<Long> it = recientes.tailMap(buscado, true).values().iterator();
+            long reciente = siguiente(it, buscado);
+
+            // Mezcla en orden el array base y las entradas recientes
+            while (vistos.size() < limite) {
+                boolean hayBase = i < base.length && empiezaPor(base[i], buscado);
+                long actual;
+                if (hayBase && (reciente < 0 || comparar(base[i], reciente) <= 0)) {
+                    actual = base[i++];
+                } else if (reciente >= 0) {
+                    actual = reciente;
+                    reciente = siguiente(it, buscado);
+                } else {
+                    break;
+                }
+                int pos = (int) (actual >>> 8);
+                if (!borrados.get(pos)) {
+                    vistos.add(nombres[pos]);
+                }
+            }
+            return new ArrayList<>(vistos);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return posiciones - numBorrados;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Minúsculas, sin tildes ni diéresis (la ñ pasa a n) y solo letras y dígitos
+     * separados por un espacio
+     */
+    static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        boolean ascii = true;
+        for (int i = 0; i < texto.length() && ascii; i++) {
+            ascii = texto.charAt(i) < 128;
+        }
+        String descompuesto = ascii ? texto : Normalizer.normalize(texto, Normalizer.Form.NFD);
+
+        StringBuilder sb = new StringBuilder(descompuesto.length());
+        boolean separar = false;
+        for (int i = 0; i < descompuesto.length(); i++) {
+            char c = descompuesto.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (separar && sb.length() > 0) {
+                    sb.append(' ');
+                }
+                sb.append(Character.toLowerCase(c));
+                separar = false;
+            } else if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                separar = true;
+            }
+        }
+        return sb.toString();
+    }
+
+    private void vaciar() {
+        ids = new int[CAPACIDAD_INICIAL];
+        nombres = new String[CAPACIDAD_INICIAL];
+        normalizados = new String[CAPACIDAD_INICIAL];
+        posiciones = 0;
+        borrados.clear();
+        numBorrados = 0;
+        posicionPorId.vaciar();
+        base = new long[0];
+        recientes.clear();
+        cargado = false;
+    }
+
+    private long siguiente(Iterator<Long> it, String prefijo) {
+        if (it.hasNext()) {
+            long e = it.next();
+            if (empiezaPor(e, prefijo)) {
+                return e;
+            }
+        }
+        return -1;
+    }
+
+    private int nuevaPosicion(int id, String nombre, String normalizado) {
+        if (posiciones == ids.length) {
+            int nueva = ids.length * 2;
+            ids = Arrays.copyOf(ids, nueva);
+            nombres = Arrays.copyOf(nombres, nueva);
+            normalizados = Arrays.copyOf(normalizados, nueva);
+        }
+        int pos = posiciones++;
+        ids[pos] = id;
+        nombres[pos] = nombre;
+        normalizados[pos] = normalizado;
+        posicionPorId.poner(id, pos);
+        return pos;
+    }
+
+    private void borrarPosicion(int pos) {
+        if (pos >= 0 && !borrados.get(pos)) {
+            borrados.set(pos);
+            numBorrados++;
+            posicionPorId.quitar(ids[pos]);
+        }
+    }
+
+    private void reconstruirSiHaceFalta() {
+        int maxRecientes = Math.max(MIN_RECONSTRUIR, base.length / 8);
+        int maxBorrados = Math.max(MIN_RECONSTRUIR, posiciones / 4);
+        if (recientes.size() > maxRecientes || numBorrados > maxBorrados) {
+            reconstruir();
+        }
+    }
+
+    /**
+     * Compacta las posiciones vivas y vuelve a generar el array ordenado de entradas
+     */
+    private void reconstruir() {
+        int vivos = 0;
+        int totalEntradas = 0;
+        posicionPorId.vaciar();
+        for (int pos = 0; pos < posiciones; pos++) {
+            if (borrados.get(pos)) {
+                continue;
+            }
+            ids[vivos] = ids[pos];
+            nombres[vivos] = nombres[pos];
+            normalizados[vivos] = normalizados[pos];
+            posicionPorId.poner(ids[vivos], vivos);
+            totalEntradas += inicioPalabras(normalizados[vivos]).length;
+            vivos++;
+        }
+        Arrays.fill(nombres, vivos, posiciones, null);
+        Arrays.fill(normalizados, vivos, posiciones, null);
+        posiciones = vivos;
+        borrados.clear();
+        numBorrados = 0;
+        recientes.clear();
+
+        long[] entradas = new long[totalEntradas];
+        int n = 0;
+        for (int pos = 0; pos < posiciones; pos++) {
+            for (int desp : inicioPalabras(normalizados[pos])) {
+                entradas[n++] = entrada(pos, desp);
+            }
+        }
+        ordenar(entradas);
+        base = entradas;
+    }
+
+    /**
+     * Desplazamientos donde empieza cada palabra (como mucho hasta el carácter 255)
+     */
+    private static int[] inicioPalabras(String normalizado) {
+        int palabras = 1;
+        int fin = Math.min(normalizado.length(), 255);
+        for (int i = 0; i < fin; i++) {
+            if (normalizado.charAt(i) == ' ') palabras++;
+        }
+        int[] inicios = new int[palabras];
+        int n = 1;
+        for (int i = 0; i < fin; i++) {
+            if (normalizado.charAt(i) == ' ') inicios[n++] = i + 1;
+        }
+        return inicios;
+    }
+
+    private static long entrada(int pos, int desplazamiento) {
+        return ((long) pos << 8) | desplazamiento;
+    }
+
+    /**
+     * Primera entrada del array base cuyo texto es mayor o igual que el prefijo
+     */
+    private int primeraEntrada(String prefijo) {
+        int lo = 0;
+        int hi = base.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compararConTexto(base[mid], prefijo) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private boolean empiezaPor(long entrada, String prefijo) {
+        return normalizados[(int) (entrada >>> 8)].startsWith(prefijo, (int) (entrada & 0xFF));
+    }
+
+    private int compararConTexto(long entrada, String texto) {
+        String s = normalizados[(int) (entrada >>> 8)];
+        int d = (int) (entrada & 0xFF);
+        int n = Math.min(s.length() - d, texto.length());
+        for (int k = 0; k < n; k++) {
+            int c = s.charAt(d + k) - texto.charAt(k);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return (s.length() - d) - texto.length();
+    }
+
+    /**
+     * Orden por el texto desde la palabra indexada y, a igualdad, por posición
+     */
+    private int comparar(long a, long b) {
+        String sa = normalizados[(int) (a >>> 8)];
+        String sb = normalizados[(int) (b >>> 8)];
+        int da = (int) (a & 0xFF);
+        int db = (int) (b & 0xFF);
+        int la = sa.length() - da;
+        int lb = sb.length() - db;
+        int n = Math.min(la, lb);
+        for (int k = 0; k < n; k++) {
+            int c = sa.charAt(da + k) - sb.charAt(db + k);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return la != lb ? la - lb : Long.compare(a, b);
+    }
+
+    /**
+     * Ordenación por mezcla sobre long[] para no crear un Long por entrada
+     */
+    private void ordenar(long[] a) {
+        long[] origen = a;
+        long[] destino = new long[a.length];
+        for (int ancho = 1; ancho < a.length; ancho *= 2) {
+            for (int inicio = 0; inicio < a.length; inicio += 2 * ancho) {
+                int medio = Math.min(inicio + ancho, a.length);
+                int fin = Math.min(inicio + 2 * ancho, a.length);
+                int i = inicio, j = medio, k = inicio;
+                while (i < medio && j < fin) {
+                    destino[k++] = comparar(origen[i], origen[j]) <= 0 ? origen[i++] : origen[j++];
+                }
+                while (i < medio) destino[k++] = origen[i++];
+                while (j < fin) destino[k++] = origen[j++];
+            }
+            long[] t = origen;
+            origen = destino;
+            destino = t;
+        }
+        if (origen != a) {
+            System.arraycopy(origen, 0, a, 0, a.length);
+        }
+    }
+
+    /**
+     * Mapa int -> int con direccionamiento abierto, sin un objeto por entrada
+     */
+    private static class MapaEnteros {
+        private static final int VACIO = Integer.MIN_VALUE;
+        private int[] claves;
+        private int[] valores;
+        private int tamano;
+        private int ocupados;                        // incluye las entradas quitadas
+
+        MapaEnteros() {
+            vaciar();
+        }
+
+        int obtener(int clave) {
+            int mascara = claves.length - 1;
+            for (int i = mezclar(clave) & mascara; claves[i] != VACIO; i = (i + 1) & mascara) {
+                if (claves[i] == clave && valores[i] >= 0) {
+                    return valores[i];
+                }
+            }
+            return -1;
+        }
+
+        void poner(int clave, int valor) {
+            if ((ocupados + 1) * 2 > claves.length) {
+                rehacer(Math.max(CAPACIDAD_INICIAL, Integer.highestOneBit(Math.max(1, tamano)) * 4));
+            }
+            int mascara = claves.length - 1;
+            int i = mezclar(clave) & mascara;
+            while (claves[i] != VACIO) {
+                if (claves[i] == clave) {
+                    if (valores[i] < 0) tamano++;
+                    valores[i] = valor;
+                    return;
+                }
+                i = (i + 1) & mascara;
+            }
+            claves[i] = clave;
+            valores[i] = valor;
+            tamano++;
+            ocupados++;
+        }
+
+        void quitar(int clave) {
+            int mascara = claves.length - 1;
+            for (int i = mezclar(clave) & mascara; claves[i] != VACIO; i = (i + 1) & mascara) {
+                if (claves[i] == clave && valores[i] >= 0) {
+                    valores[i] = -1;
+                    tamano--;
+                    return;
+                }
+            }
+        }
+
+        void vaciar() {
+            claves = new int[CAPACIDAD_INICIAL];
+            Arrays.fill(claves, VACIO);
+            valores = new int[CAPACIDAD_INICIAL];
+            tamano = 0;
+            ocupados = 0;
+        }
+
+        private void rehacer(int capacidad) {
+            int[] viejasClaves = claves;
+            int[] viejosValores = valores;
+            claves = new int[capacidad];
+            Arrays.fill(claves, VACIO);
+            valores = new int[capacidad];
+            tamano = 0;
+            ocupados = 0;
+            for (int i = 0; i < viejasClaves.length; i++) {
+                if (viejasClaves[i] != VACIO && viejosValores[i] >= 0) {
+                    poner(viejasClaves[i], viejosValores[i]);
+                }
+            }
+        }
+
+        private static int mezclar(int clave) {
+            int h = clave * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
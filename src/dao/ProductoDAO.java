@@ -1,272 +1,840 @@
-package dao;
-
-import conexion.ConexionManager;
-import java.sql.*;
-import java.util.ArrayList;
-import java.util.List;
-import modelo.ProductoElectronico;
-
-/**
- * Implementación unificada del DAO para H2 y Oracle
- * Gestiona ambas bases de datos usando un tipo de conexión configurable
- */
-public class ProductoDAO implements ProductoService {
-    
-    private TipoBD tipoBD;
-    
-    public enum TipoBD {
-        H2, ORACLE
-    }
-    
-    public ProductoDAO(TipoBD tipo) {
-        this.tipoBD = tipo;
-    }
-    
-    /**
-     * Obtiene la conexión según el tipo de BD configurado
-     */
-    private Connection obtenerConexion() throws SQLException {
-        return tipoBD == TipoBD.H2 
-            ? ConexionManager.getConexionH2() 
-            : ConexionManager.getConexionOracle();
-    }
-    
-    /**
-     * Genera el SQL de inserción según la BD
-     * H2 usa AUTO_INCREMENT, Oracle usa SEQUENCE
-     */
-    private String getSqlInsertar() {
-        if (tipoBD == TipoBD.H2) {
-            return "INSERT INTO productos_electronicos " +
-                "(nombre, categoria, precio, stock, fecha_ingreso) " +
-                "VALUES (?, ?, ?, ?, ?)";
-        } else {
-            return "INSERT INTO productos_electronicos " +
-                "(id, nombre, categoria, precio, stock, fecha_ingreso) " +
-                "VALUES (productos_seq.NEXTVAL, ?, ?, ?, ?, ?)";
-        }
-    }
-
-    @Override
-    public boolean insertar(ProductoElectronico producto) {
-        String sql = getSqlInsertar();
-        
-        try (Connection conn = obtenerConexion();
-            PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, producto.getNombre());
-            pstmt.setString(2, producto.getCategoria());
-            pstmt.setBigDecimal(3, producto.getPrecio());
-            pstmt.setInt(4, producto.getStock());
-            pstmt.setDate(5, Date.valueOf(producto.getFechaIngreso()));
-            
-            return pstmt.executeUpdate() > 0;
-            
-        } catch (SQLException e) {
-            System.err.println("Error al insertar: " + e.getMessage());
-            return false;
-        }
-    }
-
-    @Override
-    public List<ProductoElectronico> listarTodos() {
-        List<ProductoElectronico> productos = new ArrayList<>();
-        String sql = "SELECT * FROM productos_electronicos ORDER BY id";
-        
-        try (Connection conn = obtenerConexion();
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(sql)) {
-            
-            while (rs.next()) {
-                productos.add(mapearProducto(rs));
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("Error al listar: " + e.getMessage());
-        }
-        
-        return productos;
-    }
-
-    @Override
-    public ProductoElectronico obtenerPorId(int id) {
-        String sql = "SELECT * FROM productos_electronicos WHERE id = ?";
-        
-        try (Connection conn = obtenerConexion();
-            PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setInt(1, id);
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    return mapearProducto(rs);
-                }
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("Error al buscar por ID: " + e.getMessage());
-        }
-        
-        return null;
-    }
-
-    @Override
-    public boolean actualizar(ProductoElectronico producto) {
-        String sql = "UPDATE productos_electronicos SET " +
-                    "nombre = ?, categoria = ?, precio = ?, " +
-                    "stock = ?, fecha_ingreso = ? " +
-                    "WHERE id = ?";
-        
-        try (Connection conn = obtenerConexion();
-            PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, producto.getNombre());
-            pstmt.setString(2, producto.getCategoria());
-            pstmt.setBigDecimal(3, producto.getPrecio());
-            pstmt.setInt(4, producto.getStock());
-            pstmt.setDate(5, Date.valueOf(producto.getFechaIngreso()));
-            pstmt.setInt(6, producto.getId());
-            
-            return pstmt.executeUpdate() > 0;
-            
-        } catch (SQLException e) {
-            System.err.println("Error al actualizar: " + e.getMessage());
-            return false;
-        }
-    }
-
-    @Override
-    public boolean eliminar(int id) {
-        String sql = "DELETE FROM productos_electronicos WHERE id = ?";
-        
-        try (Connection conn = obtenerConexion();
-            PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setInt(1, id);
-            return pstmt.executeUpdate() > 0;
-            
-        } catch (SQLException e) {
-            System.err.println("Error al eliminar: " + e.getMessage());
-            return false;
-        }
-    }
-
-    @Override
-    public List<ProductoElectronico> buscarPorNombre(String nombre) {
-        List<ProductoElectronico> productos = new ArrayList<>();
-        String sql = "SELECT * FROM productos_electronicos " +
-                    "WHERE LOWER(nombre) LIKE LOWER(?) ORDER BY nombre";
-        
-        try (Connection conn = obtenerConexion();
-            PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, "%" + nombre + "%");
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    productos.add(mapearProducto(rs));
-                }
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("Error en búsqueda: " + e.getMessage());
-        }
-        
-        return productos;
-    }
-
-    @Override
-    public List<ProductoElectronico> listarStockBajo(int stockMinimo) {
-        List<ProductoElectronico> productos = new ArrayList<>();
-        String sql = "SELECT * FROM productos_electronicos " +
-                    "WHERE stock < ? ORDER BY stock";
-        
-        try (Connection conn = obtenerConexion();
-            PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setInt(1, stockMinimo);
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    productos.add(mapearProducto(rs));
-                }
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("Error al consultar stock: " + e.getMessage());
-        }
-        
-        return productos;
-    }
-
-    @Override
-    public int contarProductos() {
-        String sql = "SELECT COUNT(*) FROM productos_electronicos";
-        
-        try (Connection conn = obtenerConexion();
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(sql)) {
-            
-            if (rs.next()) {
-                return rs.getInt(1);
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("Error al contar: " + e.getMessage());
-        }
-        
-        return 0;
-    }
-
-    @Override
-    public List<ProductoElectronico> listarPorCategoria(String categoria) {
-        List<ProductoElectronico> productos = new ArrayList<>();
-        String sql = "SELECT * FROM productos_electronicos " +
-                    "WHERE LOWER(categoria) = LOWER(?) ORDER BY nombre";
-        
-        try (Connection conn = obtenerConexion();
-            PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, categoria);
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    productos.add(mapearProducto(rs));
-                }
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("Error al filtrar categoría: " + e.getMessage());
-        }
-        
-        return productos;
-    }
-    
-    /**
-     * Cambia el tipo de base de datos en tiempo de ejecución
-     */
-    public void cambiarTipoBD(TipoBD nuevoTipo) {
-        this.tipoBD = nuevoTipo;
-    }
-    
-    /**
-     * Obtiene el tipo de BD actual
-     */
-    public TipoBD getTipoBD() {
-        return this.tipoBD;
-    }
-
-    /**
-     * Mapea un ResultSet a un objeto ProductoElectronico
-     */
-    private ProductoElectronico mapearProducto(ResultSet rs) throws SQLException {
-        return new ProductoElectronico(
-            rs.getInt("id"),
-            rs.getString("nombre"),
-            rs.getString("categoria"),
-            rs.getBigDecimal("precio"),
-            rs.getInt("stock"),
-            rs.getDate("fecha_ingreso").toLocalDate()
-        );
-    }
+package dao;
+
+import conexion.ConexionManager;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import modelo.MovimientoStock;
+import modelo.ProductoElectronico;
+
+/**
+ * Implementación unificada del DAO para H2 y Oracle
+ * Gestiona ambas bases de datos usando un tipo de conexión configurable
+ */
+public class ProductoDAO implements ProductoService {
+    
+    // Compartida por todas las instancias: las versiones dependen del origen de datos, no del DAO
+    private static final CacheConsultas CACHE =
+            new CacheConsultas(Integer.getInteger("inventario.cache.filas", 50_000));
+    private static final String CONSULTA_NOMBRE = "nombre";
+    private static final String CONSULTA_CATEGORIA = "categoria";
+    
+    // Índice de autocompletado por origen; se carga en el primer uso o con cargarIndiceNombres()
+    private static final Map<String, IndicePrefijos> INDICES = new ConcurrentHashMap<>();
+    
+    // Último error de BD en cada hilo: los métodos CRUD lo muestran y devuelven null o vacío
+    private static final ThreadLocal<SQLException> ULTIMO_ERROR = new ThreadLocal<>();
+    
+    // volatile: cambiarTipoBD puede llamarse desde otro hilo
+    private volatile TipoBD tipoBD;
+    private final String urlH2;             // null = la BD H2 configurada en ConexionManager
+    
+    public enum TipoBD {
+        H2, ORACLE
+    }
+    
+    /**
+     * Stock y categoría de una fila leídos con bloqueo antes de modificarla
+     */
+    private record FilaBloqueada(int stock, String categoria) {
+    }
+    
+    /**
+     * Sentencias que deben confirmarse juntas (ver atomico())
+     */
+    @FunctionalInterface
+    interface Sentencias<T> {
+        T ejecutar() throws SQLException;
+    }
+    
+    public ProductoDAO(TipoBD tipo) {
+        this.tipoBD = tipo;
+        this.urlH2 = null;
+    }
+    
+    /**
+     * DAO sobre otra BD H2 (réplicas de lectura, pruebas con varias instancias)
+     */
+    public ProductoDAO(String urlH2) {
+        this.tipoBD = TipoBD.H2;
+        this.urlH2 = urlH2;
+    }
+    
+    /**
+     * Crea las tablas e índices que falten en la BD H2 del DAO (réplicas de lectura)
+     * En Oracle no hace nada: ConexionManager.crearTablaOracle() borra las tablas existentes.
+     */
+    void crearTablasSiFaltan() throws SQLException {
+        if (tipoBD != TipoBD.H2) {
+            return;
+        }
+        if (urlH2 != null) {
+            ConexionManager.crearTablaH2(urlH2);
+        } else {
+            ConexionManager.crearTablaH2();
+        }
+    }
+    
+    /**
+     * Identifica la BD a la que apunta el DAO; separa cache, índices y transacciones
+     */
+    String getOrigen() {
+        TipoBD tipo = tipoBD;
+        return tipo == TipoBD.H2 && urlH2 != null ? urlH2 : tipo.name();
+    }
+    
+    /**
+     * Obtiene la conexión según el tipo de BD configurado
+     * Dentro de una Transaccion devuelve la suya (cerrarla no tiene efecto)
+     */
+    Connection obtenerConexion() throws SQLException {
+        Transaccion tx = Transaccion.actual(getOrigen());
+        return tx != null ? tx.getConexion() : abrirConexion();
+    }
+    
+    /**
+     * Abre una conexión nueva, fuera de cualquier transacción
+     */
+    Connection abrirConexion() throws SQLException {
+        if (tipoBD == TipoBD.ORACLE) {
+            return ConexionManager.getConexionOracle();
+        }
+        return urlH2 != null 
+            ? ConexionManager.getConexionH2(urlH2) 
+            : ConexionManager.getConexionH2();
+    }
+    
+    /**
+     * Genera el SQL de inserción según la BD
+     * H2 usa AUTO_INCREMENT, Oracle usa SEQUENCE
+     */
+    String getSqlInsertar() {
+        if (tipoBD == TipoBD.H2) {
+            return "INSERT INTO productos_electronicos " +
+                "(nombre, categoria, precio, stock, fecha_ingreso) " +
+                "VALUES (?, ?, ?, ?, ?)";
+        } else {
+            return "INSERT INTO productos_electronicos " +
+                "(id, nombre, categoria, precio, stock, fecha_ingreso) " +
+                "VALUES (productos_seq.NEXTVAL, ?, ?, ?, ?, ?)";
+        }
+    }
+
+    @Override
+    public boolean insertar(ProductoElectronico producto) {
+        String sql = getSqlInsertar();
+        
+        try (Connection conn = obtenerConexion();
+            PreparedStatement pstmt = conn.prepareStatement(sql, new String[] {"id"})) {
+            
+            pstmt.setString(1, producto.getNombre());
+            pstmt.setString(2, producto.getCategoria());
+            pstmt.setBigDecimal(3, producto.getPrecio());
+            pstmt.setInt(4, producto.getStock());
+            pstmt.setDate(5, Date.valueOf(producto.getFechaIngreso()));
+            
+            // ID generado, 0 si la BD no lo devuelve o null si no se insertó
+            Integer generado = atomico(conn, () -> {
+                if (pstmt.executeUpdate() == 0) {
+                    return null;
+                }
+                // El ID se necesita para el índice de nombres y el historial de stock
+                try (ResultSet claves = pstmt.getGeneratedKeys()) {
+                    if (!claves.next()) {
+                        return 0;
+                    }
+                    int nuevoId = claves.getInt(1);
+                    registrarMovimiento(conn, nuevoId, MovimientoStock.Tipo.ALTA, 0, producto.getStock());
+                    return nuevoId;
+                }
+            });
+            boolean insertado = generado != null;
+            if (insertado) {
+                boolean conId = generado != 0;
+                if (conId) {
+                    producto.setId(generado);
+                }
+                int id = producto.getId();
+                String nombre = producto.getNombre();
+                String categoria = normalizar(producto.getCategoria());
+                String origen = getOrigen();
+                despuesDeConfirmar(() -> {
+                    if (conId) {
+                        indice(origen).agregar(id, nombre);
+                    } else {
+                        indice(origen).descartar();
+                    }
+                    CACHE.registrarInsercion(origen, categoria);
+                });
+            }
+            return insertado;
+            
+        } catch (SQLException e) {
+            informarError("Error al insertar: ", e);
+            return false;
+        }
+    }
+
+    /**
+     * Guarda el producto con su ID tal cual (actualiza o inserta); lo usa la réplica de lectura
+     */
+    boolean guardarConId(ProductoElectronico producto) {
+        String sqlActualizar = "UPDATE productos_electronicos SET " +
+                    "nombre = ?, categoria = ?, precio = ?, " +
+                    "stock = ?, fecha_ingreso = ? " +
+                    "WHERE id = ?";
+        String sqlInsertar = "INSERT INTO productos_electronicos " +
+                    "(nombre, categoria, precio, stock, fecha_ingreso, id) " +
+                    "VALUES (?, ?, ?, ?, ?, ?)";
+        
+        try (Connection conn = obtenerConexion()) {
+            boolean guardado = false;
+            for (String sql : new String[] {sqlActualizar, sqlInsertar}) {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, producto.getNombre());
+                    pstmt.setString(2, producto.getCategoria());
+                    pstmt.setBigDecimal(3, producto.getPrecio());
+                    pstmt.setInt(4, producto.getStock());
+                    pstmt.setDate(5, Date.valueOf(producto.getFechaIngreso()));
+                    pstmt.setInt(6, producto.getId());
+                    if (pstmt.executeUpdate() > 0) {
+                        guardado = true;
+                        break;
+                    }
+                }
+            }
+            if (guardado) {
+                int id = producto.getId();
+                String nombre = producto.getNombre();
+                String origen = getOrigen();
+                despuesDeConfirmar(() -> {
+                    indice(origen).agregar(id, nombre);
+                    CACHE.registrarCambio(origen);
+                });
+            }
+            return guardado;
+            
+        } catch (SQLException e) {
+            informarError("Error al replicar: ", e);
+            return false;
+        }
+    }
+
+    @Override
+    public List<ProductoElectronico> listarTodos() {
+        List<ProductoElectronico> productos = new ArrayList<>();
+        String sql = "SELECT * FROM productos_electronicos ORDER BY id";
+        
+        try (Connection conn = obtenerConexion();
+            Statement stmt = conn.createStatement();
+            ResultSet rs = stmt.executeQuery(sql)) {
+            
+            while (rs.next()) {
+                productos.add(mapearProducto(rs));
+            }
+            
+        } catch (SQLException e) {
+            informarError("Error al listar: ", e);
+        }
+        
+        return productos;
+    }
+
+    /**
+     * Entrega los productos uno a uno según se leen, sin cargar la lista en memoria
+     * (listados e informes grandes). Se reutiliza el mismo objeto para cada fila:
+     * el consumidor no debe guardarlo.
+     * @return productos entregados
+     */
+    public int recorrerTodos(Consumer<ProductoElectronico> destino) {
+        String sql = "SELECT * FROM productos_electronicos ORDER BY id";
+        
+        try (Connection conn = obtenerConexion();
+            PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            return recorrer(pstmt, destino);
+            
+        } catch (SQLException e) {
+            informarError("Error al listar: ", e);
+            return 0;
+        }
+    }
+
+    /**
+     * Como listarPorRangoFechas(desde, hasta) pero entregando las filas según se leen
+     */
+    public int recorrerPorRangoFechas(LocalDate desde, LocalDate hasta, Consumer<ProductoElectronico> destino) {
+        String sql = "SELECT * FROM productos_electronicos " +
+                    "WHERE fecha_ingreso >= ? AND fecha_ingreso <= ? ORDER BY fecha_ingreso, id";
+        
+        try (Connection conn = obtenerConexion();
+            PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setDate(1, Date.valueOf(desde));
+            pstmt.setDate(2, Date.valueOf(hasta));
+            return recorrer(pstmt, destino);
+            
+        } catch (SQLException e) {
+            informarError("Error al listar por fechas: ", e);
+            return 0;
+        }
+    }
+
+    @Override
+    public ProductoElectronico obtenerPorId(int id) {
+        String sql = "SELECT * FROM productos_electronicos WHERE id = ?";
+        
+        try (Connection conn = obtenerConexion();
+            PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setInt(1, id);
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return mapearProducto(rs);
+                }
+            }
+            
+        } catch (SQLException e) {
+            informarError("Error al buscar por ID: ", e);
+        }
+        
+        return null;
+    }
+
+    /**
+     * Productos con esos IDs tal como están confirmados ahora; los que no existen no aparecen
+     * Lo usa la réplica de lectura, que necesita saber si la consulta falló.
+     */
+    Map<Integer, ProductoElectronico> obtenerPorIds(Collection<Integer> ids) throws SQLException {
+        Map<Integer, ProductoElectronico> productos = new HashMap<>();
+        List<Integer> pendientes = new ArrayList<>(ids);
+        // Oracle admite como mucho 1000 valores en un IN
+        for (int desde = 0; desde < pendientes.size(); desde += 500) {
+            List<Integer> trozo = pendientes.subList(desde, Math.min(desde + 500, pendientes.size()));
+            String sql = "SELECT * FROM productos_electronicos WHERE id IN (" +
+                        String.join(", ", Collections.nCopies(trozo.size(), "?")) + ")";
+            
+            try (Connection conn = obtenerConexion();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                
+                for (int i = 0; i < trozo.size(); i++) {
+                    pstmt.setInt(i + 1, trozo.get(i));
+                }
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        ProductoElectronico p = mapearProducto(rs);
+                        productos.put(p.getId(), p);
+                    }
+                }
+            }
+        }
+        return productos;
+    }
+
+    @Override
+    public boolean actualizar(ProductoElectronico producto) {
+        String sql = "UPDATE productos_electronicos SET " +
+                    "nombre = ?, categoria = ?, precio = ?, " +
+                    "stock = ?, fecha_ingreso = ? " +
+                    "WHERE id = ?";
+        
+        try (Connection conn = obtenerConexion();
+            PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setString(1, producto.getNombre());
+            pstmt.setString(2, producto.getCategoria());
+            pstmt.setBigDecimal(3, producto.getPrecio());
+            pstmt.setInt(4, producto.getStock());
+            pstmt.setDate(5, Date.valueOf(producto.getFechaIngreso()));
+            pstmt.setInt(6, producto.getId());
+            
+            // Fila anterior, o null si no se actualizó
+            FilaBloqueada anterior = atomico(conn, () -> {
+                FilaBloqueada fila = leerFilaBloqueando(conn, producto.getId());
+                if (fila == null || pstmt.executeUpdate() == 0) {
+                    return null;
+                }
+                if (fila.stock() != producto.getStock()) {
+                    registrarMovimiento(conn, producto.getId(), MovimientoStock.Tipo.AJUSTE,
+                            fila.stock(), producto.getStock());
+                }
+                return fila;
+            });
+            boolean actualizado = anterior != null;
+            if (actualizado) {
+                int id = producto.getId();
+                String nombre = producto.getNombre();
+                String categoriaAnterior = normalizar(anterior.categoria());
+                String categoriaNueva = normalizar(producto.getCategoria());
+                String origen = getOrigen();
+                despuesDeConfirmar(() -> {
+                    indice(origen).agregar(id, nombre);
+                    // Solo cambian los listados de la categoría anterior y la nueva
+                    CACHE.registrarCambioEnCategorias(origen, categoriaAnterior, categoriaNueva);
+                });
+            }
+            return actualizado;
+            
+        } catch (SQLException e) {
+            informarError("Error al actualizar: ", e);
+            return false;
+        }
+    }
+
+    @Override
+    public boolean eliminar(int id) {
+        return eliminar(id, true);
+    }
+
+    /**
+     * Borra el producto; la réplica de lectura lo hace sin historial de stock (solo lo guarda el primario)
+     */
+    boolean eliminar(int id, boolean conHistorial) {
+        String sql = "DELETE FROM productos_electronicos WHERE id = ?";
+        
+        try (Connection conn = obtenerConexion();
+            PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setInt(1, id);
+            FilaBloqueada anterior = atomico(conn, () -> {
+                FilaBloqueada fila = leerFilaBloqueando(conn, id);
+                if (fila == null || pstmt.executeUpdate() == 0) {
+                    return null;
+                }
+                // El historial se conserva: la baja deja el stock a 0
+                if (conHistorial) {
+                    registrarMovimiento(conn, id, MovimientoStock.Tipo.BAJA, fila.stock(), 0);
+                }
+                return fila;
+            });
+            boolean eliminado = anterior != null;
+            if (eliminado) {
+                String categoria = normalizar(anterior.categoria());
+                String origen = getOrigen();
+                despuesDeConfirmar(() -> {
+                    indice(origen).eliminar(id);
+                    CACHE.registrarCambioEnCategorias(origen, categoria);
+                });
+            }
+            return eliminado;
+            
+        } catch (SQLException e) {
+            informarError("Error al eliminar: ", e);
+            return false;
+        }
+    }
+
+    @Override
+    public List<ProductoElectronico> buscarPorNombre(String nombre) {
+        String clave = normalizar(nombre);
+        String origen = getOrigen();
+        long version = CACHE.versionTabla(origen);
+        // Dentro de una transacción la cache no ve los cambios aún sin confirmar
+        boolean usarCache = Transaccion.actual(origen) == null;
+        List<ProductoElectronico> cacheados = usarCache
+            ? CACHE.obtener(origen, CONSULTA_NOMBRE, clave, version)
+            : null;
+        if (cacheados != null) {
+            return cacheados;
+        }
+        
+        List<ProductoElectronico> productos = new ArrayList<>();
+        String sql = "SELECT * FROM productos_electronicos " +
+                    "WHERE LOWER(nombre) LIKE LOWER(?) ORDER BY nombre";
+        
+        try (Connection conn = obtenerConexion();
+            PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setString(1, "%" + nombre + "%");
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    productos.add(mapearProducto(rs));
+                }
+            }
+            if (usarCache) {
+                CACHE.guardar(origen, CONSULTA_NOMBRE, clave, version, productos);
+            }
+            
+        } catch (SQLException e) {
+            informarError("Error en búsqueda: ", e);
+        }
+        
+        return productos;
+    }
+
+    @Override
+    public List<String> sugerirNombres(String prefijo, int limite) {
+        IndicePrefijos indice = indice(getOrigen());
+        if (!indice.isCargado() && !cargarIndiceNombres()) {
+            return new ArrayList<>();
+        }
+        return indice.sugerir(prefijo, limite);
+    }
+
+    @Override
+    public List<ProductoElectronico> listarStockBajo(int stockMinimo) {
+        List<ProductoElectronico> productos = new ArrayList<>();
+        String sql = "SELECT * FROM productos_electronicos " +
+                    "WHERE stock < ? ORDER BY stock";
+        
+        try (Connection conn = obtenerConexion();
+            PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setInt(1, stockMinimo);
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    productos.add(mapearProducto(rs));
+                }
+            }
+            
+        } catch (SQLException e) {
+            informarError("Error al consultar stock: ", e);
+        }
+        
+        return productos;
+    }
+
+    @Override
+    public int contarProductos() {
+        String sql = "SELECT COUNT(*) FROM productos_electronicos";
+        
+        try (Connection conn = obtenerConexion();
+            Statement stmt = conn.createStatement();
+            ResultSet rs = stmt.executeQuery(sql)) {
+            
+            if (rs.next()) {
+                return rs.getInt(1);
+            }
+            
+        } catch (SQLException e) {
+            informarError("Error al contar: ", e);
+        }
+        
+        return 0;
+    }
+
+    @Override
+    public List<ProductoElectronico> listarPorCategoria(String categoria) {
+        String clave = normalizar(categoria);
+        String origen = getOrigen();
+        long version = CACHE.versionCategoria(origen, clave);
+        // Dentro de una transacción la cache no ve los cambios aún sin confirmar
+        boolean usarCache = Transaccion.actual(origen) == null;
+        List<ProductoElectronico> cacheados = usarCache
+            ? CACHE.obtener(origen, CONSULTA_CATEGORIA, clave, version)
+            : null;
+        if (cacheados != null) {
+            return cacheados;
+        }
+        
+        List<ProductoElectronico> productos = new ArrayList<>();
+        String sql = "SELECT * FROM productos_electronicos " +
+                    "WHERE LOWER(categoria) = LOWER(?) ORDER BY nombre";
+        
+        try (Connection conn = obtenerConexion();
+            PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setString(1, categoria);
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    productos.add(mapearProducto(rs));
+                }
+            }
+            if (usarCache) {
+                CACHE.guardar(origen, CONSULTA_CATEGORIA, clave, version, productos);
+            }
+            
+        } catch (SQLException e) {
+            informarError("Error al filtrar categoría: ", e);
+        }
+        
+        return productos;
+    }
+
+    @Override
+    public List<ProductoElectronico> listarPorRangoFechas(LocalDate desde, LocalDate hasta) {
+        return listarPorRangoFechas(desde, hasta, null, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<ProductoElectronico> listarPorRangoFechas(LocalDate desde, LocalDate hasta,
+            ProductoElectronico despuesDe, int limite) {
+        List<ProductoElectronico> productos = new ArrayList<>();
+        // Paginación por clave (fecha_ingreso, id): cada página continúa en el índice
+        // donde terminó la anterior, sin OFFSET que recorra las filas ya devueltas.
+        // El límite inferior pasa a ser la fecha de la última fila: si fuera "desde", el
+        // índice empezaría ahí y la condición de continuación solo filtraría filas
+        String sql = "SELECT * FROM productos_electronicos " +
+                    "WHERE fecha_ingreso >= ? AND fecha_ingreso <= ? " +
+                    (despuesDe != null ? "AND (fecha_ingreso > ? OR (fecha_ingreso = ? AND id > ?)) " : "") +
+                    "ORDER BY fecha_ingreso, id " +
+                    (limite < Integer.MAX_VALUE ? "FETCH FIRST ? ROWS ONLY" : "");
+        
+        try (Connection conn = obtenerConexion();
+            PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            int i = 1;
+            pstmt.setDate(i++, Date.valueOf(despuesDe != null ? despuesDe.getFechaIngreso() : desde));
+            pstmt.setDate(i++, Date.valueOf(hasta));
+            if (despuesDe != null) {
+                pstmt.setDate(i++, Date.valueOf(despuesDe.getFechaIngreso()));
+                pstmt.setDate(i++, Date.valueOf(despuesDe.getFechaIngreso()));
+                pstmt.setInt(i++, despuesDe.getId());
+            }
+            if (limite < Integer.MAX_VALUE) {
+                pstmt.setInt(i, limite);
+            }
+            pstmt.setFetchSize(Math.min(limite, 1000));
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    productos.add(mapearProducto(rs));
+                }
+            }
+            
+        } catch (SQLException e) {
+            informarError("Error al listar por fechas: ", e);
+        }
+        
+        return productos;
+    }
+    
+    /**
+     * Cambia el tipo de base de datos en tiempo de ejecución
+     */
+    public void cambiarTipoBD(TipoBD nuevoTipo) {
+        this.tipoBD = nuevoTipo;
+    }
+    
+    /**
+     * Obtiene el tipo de BD actual
+     */
+    public TipoBD getTipoBD() {
+        return this.tipoBD;
+    }
+
+    /**
+     * Carga desde la tabla el índice de autocompletado de la BD actual
+     * @return false si no se pudo leer la tabla
+     */
+    public boolean cargarIndiceNombres() {
+        IndicePrefijos indice = indice(getOrigen());
+        String sql = "SELECT id, nombre FROM productos_electronicos";
+        
+        // Evita que dos hilos carguen a la vez el mismo índice
+        synchronized (indice) {
+            if (indice.isCargado()) {
+                return true;
+            }
+            try {
+                indice.cargar(destino -> {
+                    try (Connection conn = abrirConexion();
+                        Statement stmt = conn.createStatement()) {
+                        
+                        stmt.setFetchSize(1000);
+                        try (ResultSet rs = stmt.executeQuery(sql)) {
+                            while (rs.next()) {
+                                destino.accept(rs.getString("nombre"), rs.getInt("id"));
+                            }
+                        }
+                    }
+                });
+                return true;
+            } catch (SQLException e) {
+                System.err.println("Error al cargar índice de nombres: " + e.getMessage());
+                return false;
+            }
+        }
+    }
+    
+    /**
+     * Estadísticas de la cache de consultas por categoría y nombre
+     */
+    public static String getEstadisticasCache() {
+        return CACHE.resumen();
+    }
+    
+    /**
+     * Escrituras confirmadas a través de algún ProductoDAO en la BD de este DAO
+     * (se cuentan tras el commit, igual que la cache)
+     */
+    long getEscrituras() {
+        return CACHE.escrituras(getOrigen());
+    }
+    
+    /**
+     * Devuelve y olvida el último error de BD de este hilo, o null si no hubo
+     * Permite distinguir un fallo de un resultado vacío (p. ej. en pruebas de carga).
+     */
+    public static SQLException tomarUltimoError() {
+        SQLException e = ULTIMO_ERROR.get();
+        ULTIMO_ERROR.remove();
+        return e;
+    }
+    
+    /**
+     * Invalida la cache y el índice de nombres tras escrituras hechas fuera
+     * de los métodos CRUD (p. ej. restaurar un snapshot)
+     */
+    void notificarCambioTabla() {
+        String origen = getOrigen();
+        despuesDeConfirmar(() -> {
+            indice(origen).descartar();
+            CACHE.registrarCambio(origen);
+        });
+    }
+    
+    /**
+     * Ejecuta la acción ya, o al confirmar si hay una transacción activa
+     */
+    void despuesDeConfirmar(Runnable accion) {
+        Transaccion tx = Transaccion.actual(getOrigen());
+        if (tx != null) {
+            tx.despuesDeConfirmar(accion);
+        } else {
+            accion.run();
+        }
+    }
+    
+    /**
+     * Ejecuta las sentencias con un solo commit, para que el cambio del producto y su
+     * movimiento de stock se guarden juntos. Dentro de una Transaccion (o un GrupoCommit)
+     * la conexión ya no está en autocommit y quien confirma es ella.
+     */
+    static <T> T atomico(Connection conn, Sentencias<T> sentencias) throws SQLException {
+        if (!conn.getAutoCommit()) {
+            return sentencias.ejecutar();
+        }
+        conn.setAutoCommit(false);
+        try {
+            T resultado = sentencias.ejecutar();
+            conn.commit();
+            return resultado;
+        } catch (SQLException | RuntimeException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+    
+    /**
+     * Stock y categoría actuales del producto, bloqueando la fila hasta el commit para que
+     * el movimiento registrado cuadre aunque otro hilo la modifique a la vez
+     * @return null si el producto no existe
+     */
+    private FilaBloqueada leerFilaBloqueando(Connection conn, int id) throws SQLException {
+        String sql = "SELECT stock, categoria FROM productos_electronicos WHERE id = ? FOR UPDATE";
+        
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, id);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? new FilaBloqueada(rs.getInt(1), rs.getString(2)) : null;
+            }
+        }
+    }
+    
+    /**
+     * Añade un movimiento al historial de stock (solo inserción)
+     */
+    private void registrarMovimiento(Connection conn, int productoId, MovimientoStock.Tipo tipo,
+            int stockAnterior, int stockNuevo) throws SQLException {
+        String sql = tipoBD == TipoBD.H2
+            ? "INSERT INTO movimientos_stock " +
+                "(producto_id, fecha, dia, tipo, stock_anterior, stock_nuevo) " +
+                "VALUES (?, ?, ?, ?, ?, ?)"
+            : "INSERT INTO movimientos_stock " +
+                "(id, producto_id, fecha, dia, tipo, stock_anterior, stock_nuevo) " +
+                "VALUES (movimientos_seq.NEXTVAL, ?, ?, ?, ?, ?, ?)";
+        LocalDateTime ahora = LocalDateTime.now();
+        
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, productoId);
+            pstmt.setTimestamp(2, Timestamp.valueOf(ahora));
+            pstmt.setDate(3, Date.valueOf(ahora.toLocalDate()));
+            pstmt.setString(4, tipo.name());
+            pstmt.setInt(5, stockAnterior);
+            pstmt.setInt(6, stockNuevo);
+            pstmt.executeUpdate();
+        }
+    }
+    
+    /**
+     * Muestra el error y, dentro de una transacción, la marca para deshacerla
+     */
+    private void informarError(String mensaje, SQLException e) {
+        System.err.println(mensaje + e.getMessage());
+        ULTIMO_ERROR.set(e);
+        Transaccion tx = Transaccion.actual(getOrigen());
+        if (tx != null) {
+            tx.marcarFallo(e);
+        }
+    }
+    
+    private static IndicePrefijos indice(String origen) {
+        return INDICES.computeIfAbsent(origen, o -> new IndicePrefijos());
+    }
+    
+    /**
+     * Normaliza el argumento igual que el LOWER() de las consultas
+     */
+    private static String normalizar(String texto) {
+        return texto.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Lee la consulta por bloques y entrega cada fila en un mismo objeto reutilizado
+     */
+    private static int recorrer(PreparedStatement pstmt, Consumer<ProductoElectronico> destino) throws SQLException {
+        pstmt.setFetchSize(1000);
+        ProductoElectronico fila = new ProductoElectronico();
+        int filas = 0;
+        try (ResultSet rs = pstmt.executeQuery()) {
+            // Posiciones de las columnas una sola vez, no por nombre en cada fila
+            int id = rs.findColumn("id");
+            int nombre = rs.findColumn("nombre");
+            int categoria = rs.findColumn("categoria");
+            int precio = rs.findColumn("precio");
+            int stock = rs.findColumn("stock");
+            int fecha = rs.findColumn("fecha_ingreso");
+            while (rs.next()) {
+                fila.setId(rs.getInt(id));
+                fila.setNombre(rs.getString(nombre));
+                fila.setCategoria(rs.getString(categoria));
+                fila.setPrecio(rs.getBigDecimal(precio));
+                fila.setStock(rs.getInt(stock));
+                fila.setFechaIngreso(rs.getDate(fecha).toLocalDate());
+                destino.accept(fila);
+                filas++;
+            }
+        }
+        return filas;
+    }
+
+    /**
+     * Mapea un ResultSet a un objeto ProductoElectronico
+     */
+    private ProductoElectronico mapearProducto(ResultSet rs) throws SQLException {
+        return new ProductoElectronico(
+            rs.getInt("id"),
+            rs.getString("nombre"),
+            rs.getString("categoria"),
+            rs.getBigDecimal("precio"),
+            rs.getInt("stock"),
+            rs.getDate("fecha_ingreso").toLocalDate()
+        );
+    }
 }
\ No newline at end of file
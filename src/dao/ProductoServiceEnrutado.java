@@ -0,0 +1,230 @@
+package dao;
+
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import modelo.ProductoElectronico;
+
+/**
+ * Reparte el tráfico entre la BD primaria (escrituras) y una réplica de lectura
+ *
+ * Las escrituras van siempre al primario. Cada lectura va a la réplica si su regla lo
+ * permite y además:
+ *   - no hay una transacción abierta en el primario en este hilo,
+ *   - la réplica está sincronizada (no ha recibido escrituras por fuera de una Sesion),
+ *   - la réplica ya tiene la última escritura de la sesión (leer lo que uno escribió),
+ *   - el retraso de la réplica no supera el máximo configurado.
+ * En cualquier otro caso se lee del primario.
+ *
+ * Uso:
+ *   ReplicaLectura replica = new ReplicaLectura(new ProductoDAO(TipoBD.ORACLE),
+ *                                               new ProductoDAO("jdbc:h2:~/inventario_replica"));
+ *   replica.sincronizar();                                // crea las tablas de la réplica si faltan
+ *   ProductoServiceEnrutado enrutado = new ProductoServiceEnrutado(replica, 500);
+ *   ProductoService servicio = enrutado.abrirSesion();   // una sesión por usuario o petición
+ */
+public class ProductoServiceEnrutado {
+
+    public enum Lectura {
+        LISTAR_TODOS, OBTENER_POR_ID, BUSCAR_POR_NOMBRE, SUGERIR_NOMBRES,
+        LISTAR_STOCK_BAJO, CONTAR, LISTAR_POR_CATEGORIA, LISTAR_POR_FECHAS
+    }
+
+    public enum Destino {
+        PRIMARIO, REPLICA
+    }
+
+    private final ReplicaLectura replica;
+    private final ProductoDAO primario;
+    private final Map<Lectura, Destino> reglas = new EnumMap<>(Lectura.class);
+    private volatile long maxRetrasoMs;
+
+    private final LongAdder lecturasReplica = new LongAdder();
+    private final LongAdder porRegla = new LongAdder();
+    private final LongAdder porTransaccion = new LongAdder();
+    private final LongAdder porDesincronizacion = new LongAdder();
+    private final LongAdder porSesion = new LongAdder();
+    private final LongAdder porRetraso = new LongAdder();
+
+    public ProductoServiceEnrutado(ReplicaLectura replica, long maxRetrasoMs) {
+        this.replica = replica;
+        this.primario = replica.getPrimario();
+        this.maxRetrasoMs = maxRetrasoMs;
+        for (Lectura op : Lectura.values()) {
+            reglas.put(op, Destino.PRIMARIO);
+        }
+        reglas.put(Lectura.OBTENER_POR_ID, Destino.REPLICA);
+        reglas.put(Lectura.BUSCAR_POR_NOMBRE, Destino.REPLICA);
+        reglas.put(Lectura.LISTAR_STOCK_BAJO, Destino.REPLICA);
+        reglas.put(Lectura.LISTAR_POR_CATEGORIA, Destino.REPLICA);
+        reglas.put(Lectura.LISTAR_POR_FECHAS, Destino.REPLICA);
+    }
+
+    /**
+     * Cambia a dónde puede ir una operación de lectura
+     */
+    public synchronized void setRegla(Lectura op, Destino destino) {
+        reglas.put(op, destino);
+    }
+
+    /**
+     * Retraso máximo (ms) que se acepta en la réplica antes de leer del primario
+     */
+    public void setMaxRetrasoMs(long maxRetrasoMs) {
+        this.maxRetrasoMs = maxRetrasoMs;
+    }
+
+    /**
+     * Nueva sesión: garantiza que sus lecturas ven sus propias escrituras
+     */
+    public Sesion abrirSesion() {
+        return new Sesion();
+    }
+
+    /**
+     * Resumen de a dónde han ido las lecturas y por qué
+     */
+    public String resumen() {
+        long aPrimario = porRegla.sum() + porTransaccion.sum() + porDesincronizacion.sum()
+                + porSesion.sum() + porRetraso.sum();
+        return String.format("lecturas: %d réplica, %d primario (%d por regla, %d en transacción, " +
+                "%d réplica desincronizada, %d por la sesión, %d por retraso); retraso actual %d ms, %d pendientes",
+                lecturasReplica.sum(), aPrimario, porRegla.sum(), porTransaccion.sum(),
+                porDesincronizacion.sum(), porSesion.sum(), porRetraso.sum(),
+                replica.getRetrasoMs(), replica.getPendientes());
+    }
+
+    private synchronized Destino regla(Lectura op) {
+        return reglas.get(op);
+    }
+
+    /**
+     * Decide el DAO para una lectura de la sesión
+     */
+    private ProductoDAO elegir(Lectura op, long ultimaEscritura) {
+        if (regla(op) == Destino.PRIMARIO) {
+            porRegla.increment();
+            return primario;
+        }
+        if (Transaccion.actual(primario.getOrigen()) != null) {
+            porTransaccion.increment();
+            return primario;
+        }
+        if (replica.isDesincronizada()) {
+            porDesincronizacion.increment();
+            return primario;
+        }
+        if (replica.getSecuenciaAplicada() < ultimaEscritura) {
+            porSesion.increment();
+            return primario;
+        }
+        if (replica.getRetrasoMs() > maxRetrasoMs) {
+            porRetraso.increment();
+            return primario;
+        }
+        lecturasReplica.increment();
+        return replica.getReplica();
+    }
+
+    /**
+     * Vista de ProductoService para un usuario o petición
+     */
+    public class Sesion implements ProductoService {
+
+        private volatile long ultimaEscritura;
+
+        @Override
+        public boolean insertar(ProductoElectronico producto) {
+            int idAnterior = producto.getId();
+            producto.setId(0);
+            boolean insertado = primario.insertar(producto);
+            if (!insertado) {
+                producto.setId(idAnterior);
+            } else if (producto.getId() == 0) {
+                // Sin el ID generado no se puede replicar la fila
+                replica.invalidar();
+            } else {
+                registrarCambio(producto.getId());
+            }
+            return insertado;
+        }
+
+        @Override
+        public boolean actualizar(ProductoElectronico producto) {
+            boolean actualizado = primario.actualizar(producto);
+            if (actualizado) {
+                registrarCambio(producto.getId());
+            }
+            return actualizado;
+        }
+
+        @Override
+        public boolean eliminar(int id) {
+            boolean eliminado = primario.eliminar(id);
+            if (eliminado) {
+                registrarCambio(id);
+            }
+            return eliminado;
+        }
+
+        @Override
+        public List<ProductoElectronico> listarTodos() {
+            return elegir(Lectura.LISTAR_TODOS, ultimaEscritura).listarTodos();
+        }
+
+        @Override
+        public ProductoElectronico obtenerPorId(int id) {
+            return elegir(Lectura.OBTENER_POR_ID, ultimaEscritura).obtenerPorId(id);
+        }
+
+        @Override
+        public List<ProductoElectronico> buscarPorNombre(String nombre) {
+            return elegir(Lectura.BUSCAR_POR_NOMBRE, ultimaEscritura).buscarPorNombre(nombre);
+        }
+
+        @Override
+        public List<String> sugerirNombres(String prefijo, int limite) {
+            return elegir(Lectura.SUGERIR_NOMBRES, ultimaEscritura).sugerirNombres(prefijo, limite);
+        }
+
+        @Override
+        public List<ProductoElectronico> listarStockBajo(int stockMinimo) {
+            return elegir(Lectura.LISTAR_STOCK_BAJO, ultimaEscritura).listarStockBajo(stockMinimo);
+        }
+
+        @Override
+        public int contarProductos() {
+            return elegir(Lectura.CONTAR, ultimaEscritura).contarProductos();
+        }
+
+        @Override
+        public List<ProductoElectronico> listarPorCategoria(String categoria) {
+            return elegir(Lectura.LISTAR_POR_CATEGORIA, ultimaEscritura).listarPorCategoria(categoria);
+        }
+
+        @Override
+        public List<ProductoElectronico> listarPorRangoFechas(LocalDate desde, LocalDate hasta) {
+            return elegir(Lectura.LISTAR_POR_FECHAS, ultimaEscritura).listarPorRangoFechas(desde, hasta);
+        }
+
+        @Override
+        public List<ProductoElectronico> listarPorRangoFechas(LocalDate desde, LocalDate hasta,
+                ProductoElectronico despuesDe, int limite) {
+            return elegir(Lectura.LISTAR_POR_FECHAS, ultimaEscritura)
+                    .listarPorRangoFechas(desde, hasta, despuesDe, limite);
+        }
+
+        /**
+         * Encola el ID para la réplica cuando se confirme la escritura
+         */
+        private void registrarCambio(int id) {
+            primario.despuesDeConfirmar(() -> anotar(replica.registrarCambio(id)));
+        }
+
+        private synchronized void anotar(long secuencia) {
+            ultimaEscritura = Math.max(ultimaEscritura, secuencia);
+        }
+    }
+}
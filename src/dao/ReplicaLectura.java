@@ -0,0 +1,234 @@
+package dao;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import modelo.ProductoElectronico;
+
+/**
+ * Copia de lectura mantenida de forma asíncrona a partir de las escrituras confirmadas en el primario
+ *
+ * Cada escritura recibe un número de secuencia al confirmarse y se encola el ID afectado; un hilo
+ * propio aplica los cambios por lotes, en una transacción por lote, releyendo del primario la fila
+ * confirmada de cada ID. Así el orden en que se encolan no importa (dos escrituras sobre el mismo
+ * producto pueden encolarse al revés de como se confirmaron) y la réplica siempre acaba con el
+ * último estado. Se sabe hasta qué escritura está al día y cuánto retraso lleva.
+ * sincronizar() copia la tabla completa del primario con un snapshot (arranque o tras un fallo);
+ * antes crea en una réplica H2 las tablas e índices que falten.
+ *
+ * Solo llegan a la réplica las escrituras hechas con ProductoServiceEnrutado.Sesion. Si el
+ * primario recibe otras (un ProductoDAO directo, GrupoCommit, un snapshot restaurado...) se
+ * detecta por el contador de escrituras del DAO y la réplica se da por desincronizada hasta
+ * el siguiente sincronizar().
+ */
+public class ReplicaLectura implements AutoCloseable {
+
+    private static final int MAX_LOTE = 500;
+
+    private final ProductoDAO primario;
+    private final ProductoDAO replica;
+    private final BlockingQueue<Cambio> cola = new LinkedBlockingQueue<>();
+    private final AtomicLong secuencia = new AtomicLong();
+    // Escrituras del primario que debería haber si todas pasan por registrarCambio()
+    private final AtomicLong escriturasEsperadas = new AtomicLong();
+    private final ReentrantLock aplicando = new ReentrantLock();
+    private final Thread hilo;
+
+    private volatile long aplicada;
+    private volatile long loteDesdeNanos;            // encolado del lote en curso, 0 si no hay
+    private volatile boolean desincronizada = true;
+    private volatile boolean cerrada;
+
+    /**
+     * Producto modificado pendiente de copiar a la réplica
+     */
+    private record Cambio(long secuencia, long encoladoNanos, int id) {
+    }
+
+    public ReplicaLectura(ProductoDAO primario, ProductoDAO replica) {
+        this.primario = primario;
+        this.replica = replica;
+        this.escriturasEsperadas.set(primario.getEscrituras());
+        this.hilo = new Thread(this::procesar, "replica-" + replica.getOrigen());
+        this.hilo.setDaemon(true);
+        this.hilo.start();
+    }
+
+    public ProductoDAO getPrimario() {
+        return primario;
+    }
+
+    public ProductoDAO getReplica() {
+        return replica;
+    }
+
+    /**
+     * Registra un alta, modificación o borrado del producto ya confirmado en el primario
+     * @return número de secuencia de la escritura
+     */
+    long registrarCambio(int id) {
+        escriturasEsperadas.incrementAndGet();
+        // La secuencia se asigna dentro de synchronized para que la cola quede ordenada
+        synchronized (cola) {
+            long n = secuencia.incrementAndGet();
+            cola.add(new Cambio(n, System.nanoTime(), id));
+            return n;
+        }
+    }
+
+    /**
+     * Marca la réplica como no fiable hasta la próxima sincronización
+     * (p. ej. una inserción de la que no se obtuvo el ID)
+     */
+    void invalidar() {
+        desincronizada = true;
+    }
+
+    /**
+     * Última secuencia ya visible en la réplica
+     */
+    public long getSecuenciaAplicada() {
+        return aplicada;
+    }
+
+    /**
+     * true si falta una sincronización o el primario ha recibido escrituras que no pasaron
+     * por registrarCambio(); también un instante durante cada escritura registrada, entre
+     * su commit y su registro
+     */
+    public boolean isDesincronizada() {
+        return desincronizada || primario.getEscrituras() != escriturasEsperadas.get();
+    }
+
+    /**
+     * Antigüedad (ms) de la escritura más vieja aún no aplicada; 0 si está al día
+     */
+    public long getRetrasoMs() {
+        long desde = loteDesdeNanos;
+        if (desde == 0) {
+            Cambio pendiente = cola.peek();
+            if (pendiente == null) {
+                return 0;
+            }
+            desde = pendiente.encoladoNanos();
+        }
+        return (System.nanoTime() - desde) / 1_000_000;
+    }
+
+    public int getPendientes() {
+        return cola.size();
+    }
+
+    /**
+     * Copia toda la tabla del primario a la réplica y descarta lo ya incluido en la copia
+     * Las escrituras posteriores siguen en la cola y se aplican después (son idempotentes).
+     */
+    public void sincronizar() throws SQLException, IOException {
+        aplicando.lock();
+        try {
+            // Mientras se copia, la réplica está incompleta
+            desincronizada = true;
+            replica.crearTablasSiFaltan();
+            // Las escrituras ajenas posteriores a este punto vuelven a desincronizarla
+            escriturasEsperadas.set(primario.getEscrituras());
+            long hasta = secuencia.get();
+            Path archivo = Files.createTempFile("replica-", ".snap");
+            try {
+                new SnapshotInventario(primario).exportar(archivo, SnapshotInventario.Codec.NINGUNO);
+                try (Connection conn = replica.abrirConexion();
+                    Statement stmt = conn.createStatement()) {
+                    stmt.execute("DELETE FROM productos_electronicos");
+                }
+                new SnapshotInventario(replica).restaurar(archivo, true);
+            } finally {
+                Files.deleteIfExists(archivo);
+            }
+            while (!cola.isEmpty() && cola.peek().secuencia() <= hasta) {
+                cola.poll();
+            }
+            aplicada = Math.max(aplicada, hasta);
+            desincronizada = false;
+        } finally {
+            aplicando.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        cerrada = true;
+        hilo.interrupt();
+        try {
+            hilo.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void procesar() {
+        List<Cambio> lote = new ArrayList<>(MAX_LOTE);
+        while (!cerrada) {
+            try {
+                Cambio primero = cola.take();
+                // getRetrasoMs() debe seguir contando el lote mientras se aplica
+                loteDesdeNanos = primero.encoladoNanos();
+                aplicando.lockInterruptibly();
+                try {
+                    lote.add(primero);
+                    cola.drainTo(lote, MAX_LOTE - 1);
+                    if (!desincronizada) {
+                        aplicar(lote);
+                    }
+                } finally {
+                    loteDesdeNanos = 0;
+                    aplicando.unlock();
+                    lote.clear();
+                }
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Aplica un lote en una sola transacción; si falla, la réplica queda desincronizada
+     */
+    private void aplicar(List<Cambio> lote) {
+        Set<Integer> ids = new LinkedHashSet<>();
+        for (Cambio c : lote) {
+            if (c.secuencia() > aplicada) {
+                ids.add(c.id());
+            }
+        }
+        try {
+            // Se lee después de que todas las escrituras del lote se confirmaran
+            Map<Integer, ProductoElectronico> actuales = primario.obtenerPorIds(ids);
+            Transaccion.ejecutar(replica, servicio -> {
+                for (int id : ids) {
+                    ProductoElectronico p = actuales.get(id);
+                    if (p == null) {
+                        replica.eliminar(id, false);
+                    } else {
+                        replica.guardarConId(p);
+                    }
+                }
+                return null;
+            });
+            aplicada = Math.max(aplicada, lote.get(lote.size() - 1).secuencia());
+        } catch (SQLException e) {
+            System.err.println("Error al aplicar cambios en la réplica: " + e.getMessage());
+            desincronizada = true;
+        }
+    }
+}
@@ -0,0 +1,503 @@
+package dao;
+
+import dao.ProductoDAO.TipoBD;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Snapshot binario de la tabla productos_electronicos
+ *
+ * Formato (versión 1, big-endian):
+ *   Cabecera: "INVSNAP\0" | versión (short) | códec (byte) | reservado (byte) | filas por bloque (int)
+ *   Bloque:   filas (int) | bytes originales (int) | bytes guardados (int) | CRC32 (int) | datos
+ *   Final:    filas = 0 | total de filas (long) | CRC32 acumulado de los bloques (int)
+ *
+ * Dentro de cada bloque los datos van por columnas: id, stock, fecha (días epoch),
+ * precio (céntimos), y para nombre y categoría primero las longitudes y luego los bytes UTF-8.
+ * Solo se mantiene un bloque en memoria, tanto al exportar como al restaurar.
+ */
+public class SnapshotInventario {
+
+    private static final byte[] MAGIC = "INVSNAP\0".getBytes(StandardCharsets.US_ASCII);
+    private static final short VERSION = 1;
+    private static final int TAM_CABECERA = 16;
+    private static final int TAM_CABECERA_BLOQUE = 16;
+    private static final int TAM_FINAL = 12;   // tras el marcador de fin
+    private static final int ESCALA_PRECIO = 2;
+    private static final int FILAS_POR_BLOQUE = 4096;
+    // Tamaño máximo de una fila codificada: id, stock, fecha, precio, las dos longitudes
+    // y nombre (VARCHAR 100) y categoría (VARCHAR 50) a 4 bytes por carácter en UTF-8
+    private static final int TAM_FIJO_FILA = 4 + 4 + 4 + 8 + 4 + 4;
+    private static final int TAM_MAX_FILA = TAM_FIJO_FILA + 100 * 4 + 50 * 4;
+    private static final int TAM_MAX_BLOQUE = FILAS_POR_BLOQUE * TAM_MAX_FILA;
+    // DEFLATE puede crecer un poco con datos incompresibles
+    private static final int TAM_MAX_GUARDADO = TAM_MAX_BLOQUE + TAM_MAX_BLOQUE / 100 + 1024;
+
+    public enum Codec {
+        NINGUNO, DEFLATE
+    }
+
+    private final ProductoDAO dao;
+
+    public SnapshotInventario(ProductoDAO dao) {
+        this.dao = dao;
+    }
+
+    /**
+     * Exporta la tabla completa al archivo indicado
+     * Se escribe primero en un temporal y se renombra al terminar
+     * @return número de filas exportadas
+     */
+    public long exportar(Path archivo, Codec codec) throws IOException, SQLException {
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        String sql = "SELECT id, nombre, categoria, precio, stock, fecha_ingreso " +
+                    "FROM productos_electronicos ORDER BY id";
+        long total = 0;
+
+        try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            Connection conn = dao.obtenerConexion();
+            Statement stmt = conn.createStatement()) {
+
+            stmt.setFetchSize(FILAS_POR_BLOQUE);
+            escribirCabecera(canal, codec);
+
+            Bloque bloque = new Bloque();
+            Compresor compresor = new Compresor(codec);
+            CRC32 crcTotal = new CRC32();
+
+            try (ResultSet rs = stmt.executeQuery(sql)) {
+                while (rs.next()) {
+                    bloque.agregar(rs);
+                    if (bloque.filas == FILAS_POR_BLOQUE) {
+                        total += escribirBloque(canal, bloque, compresor, crcTotal);
+                    }
+                }
+            }
+            total += escribirBloque(canal, bloque, compresor, crcTotal);
+            compresor.cerrar();
+
+            ByteBuffer fin = ByteBuffer.allocate(4 + TAM_FINAL);
+            fin.putInt(0)
+               .putLong(total)
+               .putInt((int) crcTotal.getValue())
+               .flip();
+            escribirCompleto(canal, fin);
+            canal.force(true);
+        } catch (IOException | SQLException e) {
+            Files.deleteIfExists(temporal);
+            throw e;
+        }
+
+        Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return total;
+    }
+
+    /**
+     * Restaura un snapshot en la tabla usando inserciones por lotes en una sola transacción
+     * Con conservarIds la tabla debe estar vacía y se reajusta el generador de IDs;
+     * sin conservarIds las filas se añaden con IDs nuevos.
+     * @return número de filas restauradas
+     */
+    public long restaurar(Path archivo, boolean conservarIds) throws IOException, SQLException {
+        String sql = conservarIds
+            ? "INSERT INTO productos_electronicos " +
+                "(id, nombre, categoria, precio, stock, fecha_ingreso) " +
+                "VALUES (?, ?, ?, ?, ?, ?)"
+            : dao.getSqlInsertar();
+        long total = 0;
+        int maxId = 0;
+
+        if (Transaccion.actual(dao.getOrigen()) != null) {
+            throw new SQLException("No se puede restaurar un snapshot dentro de una transacción");
+        }
+
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ);
+            Connection conn = dao.obtenerConexion()) {
+
+            Codec codec = leerCabecera(canal);
+            if (conservarIds && contarFilas(conn) > 0) {
+                throw new SQLException("La tabla productos_electronicos no está vacía");
+            }
+
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                Bloque bloque = new Bloque();
+                Descompresor descompresor = new Descompresor(codec);
+                CRC32 crcTotal = new CRC32();
+
+                while (leerBloque(canal, bloque, descompresor, crcTotal)) {
+                    for (int i = 0; i < bloque.filas; i++) {
+                        int p = 1;
+                        if (conservarIds) {
+                            pstmt.setInt(p++, bloque.ids[i]);
+                            maxId = Math.max(maxId, bloque.ids[i]);
+                        }
+                        pstmt.setString(p++, new String(bloque.nombres[i], StandardCharsets.UTF_8));
+                        pstmt.setString(p++, new String(bloque.categorias[i], StandardCharsets.UTF_8));
+                        pstmt.setBigDecimal(p++, BigDecimal.valueOf(bloque.precios[i], ESCALA_PRECIO));
+                        pstmt.setInt(p++, bloque.stocks[i]);
+                        pstmt.setDate(p, Date.valueOf(LocalDate.ofEpochDay(bloque.fechas[i])));
+                        pstmt.addBatch();
+                    }
+                    pstmt.executeBatch();
+                    total += bloque.filas;
+                }
+                descompresor.cerrar();
+
+                ByteBuffer fin = leerCompleto(canal, TAM_FINAL);
+                long esperado = fin.getLong();
+                int crcEsperado = fin.getInt();
+                if (esperado != total || crcEsperado != (int) crcTotal.getValue()) {
+                    throw new IOException("Snapshot inconsistente: se esperaban " + esperado +
+                                        " filas y se leyeron " + total);
+                }
+                conn.commit();
+                dao.notificarCambioTabla();
+            } catch (IOException | SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+
+            if (conservarIds && total > 0) {
+                reiniciarGeneradorIds(conn, maxId + 1);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Deja el AUTO_INCREMENT (H2) o la secuencia (Oracle) por encima del mayor ID restaurado
+     */
+    private void reiniciarGeneradorIds(Connection conn, int siguiente) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            if (dao.getTipoBD() == TipoBD.H2) {
+                stmt.execute("ALTER TABLE productos_electronicos ALTER COLUMN id RESTART WITH " + siguiente);
+            } else {
+                stmt.execute("DROP SEQUENCE productos_seq");
+                stmt.execute("CREATE SEQUENCE productos_seq START WITH " + siguiente + " INCREMENT BY 1");
+            }
+        }
+    }
+
+    private int contarFilas(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+            ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM productos_electronicos")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private void escribirCabecera(FileChannel canal, Codec codec) throws IOException {
+        ByteBuffer cabecera = ByteBuffer.allocate(TAM_CABECERA);
+        cabecera.put(MAGIC)
+                .putShort(VERSION)
+                .put((byte) codec.ordinal())
+                .put((byte) 0)
+                .putInt(FILAS_POR_BLOQUE)
+                .flip();
+        escribirCompleto(canal, cabecera);
+    }
+
+    private Codec leerCabecera(FileChannel canal) throws IOException {
+        ByteBuffer cabecera = leerCompleto(canal, TAM_CABECERA);
+        byte[] magic = new byte[MAGIC.length];
+        cabecera.get(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("El archivo no es un snapshot de inventario");
+        }
+        short version = cabecera.getShort();
+        if (version != VERSION) {
+            throw new IOException("Versión de snapshot no soportada: " + version);
+        }
+        int codec = cabecera.get();
+        if (codec < 0 || codec >= Codec.values().length) {
+            throw new IOException("Códec de snapshot desconocido: " + codec);
+        }
+        return Codec.values()[codec];
+    }
+
+    /**
+     * Codifica el bloque por columnas, lo comprime si procede y lo escribe con su cabecera
+     * @return filas escritas
+     */
+    private int escribirBloque(FileChannel canal, Bloque bloque, Compresor compresor,
+                               CRC32 crcTotal) throws IOException {
+        int filas = bloque.filas;
+        if (filas == 0) {
+            return 0;
+        }
+        ByteBuffer datos = bloque.codificar();
+        CRC32 crc = new CRC32();
+        crc.update(datos.duplicate());
+        int tamOriginal = datos.remaining();
+        ByteBuffer guardado = compresor.comprimir(datos);
+
+        ByteBuffer cabecera = ByteBuffer.allocate(TAM_CABECERA_BLOQUE);
+        cabecera.putInt(filas)
+                .putInt(tamOriginal)
+                .putInt(guardado.remaining())
+                .putInt((int) crc.getValue())
+                .flip();
+        crcTotal.update(cabecera.array(), 12, 4);
+        escribirCompleto(canal, cabecera);
+        escribirCompleto(canal, guardado);
+        bloque.filas = 0;
+        return filas;
+    }
+
+    /**
+     * Lee el siguiente bloque y verifica su CRC
+     * @return false al llegar al marcador de fin
+     */
+    private boolean leerBloque(FileChannel canal, Bloque bloque, Descompresor descompresor,
+                               CRC32 crcTotal) throws IOException {
+        ByteBuffer marca = leerCompleto(canal, 4);
+        int filas = marca.getInt();
+        if (filas == 0) {
+            return false;
+        }
+        if (filas < 0 || filas > FILAS_POR_BLOQUE) {
+            throw new IOException("Bloque corrupto: " + filas + " filas");
+        }
+        ByteBuffer cabecera = leerCompleto(canal, TAM_CABECERA_BLOQUE - 4);
+        int tamOriginal = cabecera.getInt();
+        int tamGuardado = cabecera.getInt();
+        int crcEsperado = cabecera.getInt();
+        crcTotal.update(cabecera.array(), 8, 4);
+        // Se comprueban antes de reservar memoria para el bloque
+        if (tamOriginal < filas * TAM_FIJO_FILA || tamOriginal > filas * TAM_MAX_FILA
+                || tamGuardado < 0 || tamGuardado > TAM_MAX_GUARDADO) {
+            throw new IOException("Bloque corrupto: tamaños " + tamOriginal + "/" + tamGuardado);
+        }
+
+        ByteBuffer datos = descompresor.descomprimir(leerCompleto(canal, tamGuardado), tamOriginal);
+        CRC32 crc = new CRC32();
+        crc.update(datos.duplicate());
+        if ((int) crc.getValue() != crcEsperado) {
+            throw new IOException("CRC incorrecto en bloque del snapshot");
+        }
+        bloque.decodificar(datos, filas);
+        return true;
+    }
+
+    private static void escribirCompleto(FileChannel canal, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+    }
+
+    private static ByteBuffer leerCompleto(FileChannel canal, int bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(bytes);
+        while (buffer.hasRemaining()) {
+            if (canal.read(buffer) < 0) {
+                throw new IOException("Snapshot truncado");
+            }
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * Bloque de filas almacenado por columnas, se reutiliza entre bloques
+     */
+    private static class Bloque {
+        int filas;
+        final int[] ids = new int[FILAS_POR_BLOQUE];
+        final int[] stocks = new int[FILAS_POR_BLOQUE];
+        final int[] fechas = new int[FILAS_POR_BLOQUE];
+        final long[] precios = new long[FILAS_POR_BLOQUE];
+        final byte[][] nombres = new byte[FILAS_POR_BLOQUE][];
+        final byte[][] categorias = new byte[FILAS_POR_BLOQUE][];
+        private ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+
+        void agregar(ResultSet rs) throws SQLException {
+            ids[filas] = rs.getInt("id");
+            nombres[filas] = rs.getString("nombre").getBytes(StandardCharsets.UTF_8);
+            categorias[filas] = rs.getString("categoria").getBytes(StandardCharsets.UTF_8);
+            precios[filas] = rs.getBigDecimal("precio")
+                    .setScale(ESCALA_PRECIO, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+            stocks[filas] = rs.getInt("stock");
+            fechas[filas] = (int) rs.getDate("fecha_ingreso").toLocalDate().toEpochDay();
+            filas++;
+        }
+
+        ByteBuffer codificar() {
+            int tam = filas * TAM_FIJO_FILA;
+            for (int i = 0; i < filas; i++) {
+                tam += nombres[i].length + categorias[i].length;
+            }
+            if (buffer.capacity() < tam) {
+                buffer = ByteBuffer.allocate(tam);
+            }
+            buffer.clear();
+            for (int i = 0; i < filas; i++) buffer.putInt(ids[i]);
+            for (int i = 0; i < filas; i++) buffer.putInt(stocks[i]);
+            for (int i = 0; i < filas; i++) buffer.putInt(fechas[i]);
+            for (int i = 0; i < filas; i++) buffer.putLong(precios[i]);
+            for (int i = 0; i < filas; i++) buffer.putInt(nombres[i].length);
+            for (int i = 0; i < filas; i++) buffer.put(nombres[i]);
+            for (int i = 0; i < filas; i++) buffer.putInt(categorias[i].length);
+            for (int i = 0; i < filas; i++) buffer.put(categorias[i]);
+            return buffer.flip();
+        }
+
+        void decodificar(ByteBuffer datos, int n) throws IOException {
+            try {
+                filas = n;
+                for (int i = 0; i < n; i++) ids[i] = datos.getInt();
+                for (int i = 0; i < n; i++) stocks[i] = datos.getInt();
+                for (int i = 0; i < n; i++) fechas[i] = datos.getInt();
+                for (int i = 0; i < n; i++) precios[i] = datos.getLong();
+                for (int i = 0; i < n; i++) nombres[i] = new byte[longitud(datos)];
+                for (int i = 0; i < n; i++) datos.get(nombres[i]);
+                for (int i = 0; i < n; i++) categorias[i] = new byte[longitud(datos)];
+                for (int i = 0; i < n; i++) datos.get(categorias[i]);
+            } catch (RuntimeException e) {
+                throw new IOException("Bloque del snapshot mal formado", e);
+            }
+        }
+
+        /**
+         * Longitud de un texto; no puede superar lo que queda del bloque
+         */
+        private static int longitud(ByteBuffer datos) throws IOException {
+            int tam = datos.getInt();
+            if (tam < 0 || tam > datos.remaining()) {
+                throw new IOException("Bloque del snapshot mal formado: texto de " + tam + " bytes");
+            }
+            return tam;
+        }
+    }
+
+    /**
+     * Aplica el códec del snapshot al escribir
+     */
+    private static class Compresor {
+        private final Deflater deflater;
+        private byte[] salida = new byte[64 * 1024];
+
+        Compresor(Codec codec) {
+            this.deflater = codec == Codec.DEFLATE ? new Deflater(Deflater.BEST_SPEED) : null;
+        }
+
+        ByteBuffer comprimir(ByteBuffer datos) {
+            if (deflater == null) {
+                return datos;
+            }
+            deflater.reset();
+            deflater.setInput(datos.array(), datos.position(), datos.remaining());
+            deflater.finish();
+            int tam = 0;
+            while (!deflater.finished()) {
+                if (tam == salida.length) {
+                    salida = Arrays.copyOf(salida, salida.length * 2);
+                }
+                tam += deflater.deflate(salida, tam, salida.length - tam);
+            }
+            return ByteBuffer.wrap(salida, 0, tam);
+        }
+
+        void cerrar() {
+            if (deflater != null) {
+                deflater.end();
+            }
+        }
+    }
+
+    /**
+     * Deshace el códec del snapshot al leer
+     */
+    private static class Descompresor {
+        private final Inflater inflater;
+        private byte[] salida = new byte[64 * 1024];
+
+        Descompresor(Codec codec) {
+            this.inflater = codec == Codec.DEFLATE ? new Inflater() : null;
+        }
+
+        ByteBuffer descomprimir(ByteBuffer datos, int tamOriginal) throws IOException {
+            if (inflater == null) {
+                if (datos.remaining() != tamOriginal) {
+                    throw new IOException("Tamaño de bloque incorrecto en el snapshot");
+                }
+                return datos;
+            }
+            if (salida.length < tamOriginal) {
+                salida = new byte[tamOriginal];
+            }
+            inflater.reset();
+            inflater.setInput(datos.array(), datos.position(), datos.remaining());
+            try {
+                int tam = 0;
+                while (tam < tamOriginal && !inflater.finished()) {
+                    int n = inflater.inflate(salida, tam, tamOriginal - tam);
+                    if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        break;
+                    }
+                    tam += n;
+                }
+                if (tam != tamOriginal) {
+                    throw new IOException("Tamaño de bloque incorrecto en el snapshot");
+                }
+            } catch (DataFormatException e) {
+                throw new IOException("Bloque comprimido corrupto en el snapshot", e);
+            }
+            return ByteBuffer.wrap(salida, 0, tamOriginal);
+        }
+
+        void cerrar() {
+            if (inflater != null) {
+                inflater.end();
+            }
+        }
+    }
+
+    private static final String USO = "Uso: SnapshotInventario exportar|restaurar H2|ORACLE archivo [DEFLATE|ANADIR]";
+
+    /**
+     * Uso por línea de comandos para preparar entornos de prueba:
+     *   java dao.SnapshotInventario exportar H2 inventario.snap [DEFLATE]
+     *   java dao.SnapshotInventario restaurar H2 inventario.snap [ANADIR]
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println(USO);
+            System.exit(1);
+        }
+        SnapshotInventario snapshot = new SnapshotInventario(new ProductoDAO(TipoBD.valueOf(args[1].toUpperCase())));
+        Path archivo = Paths.get(args[2]);
+        String extra = args.length > 3 ? args[3].toUpperCase() : "";
+
+        long inicio = System.nanoTime();
+        long filas;
+        if (args[0].equalsIgnoreCase("exportar")) {
+            filas = snapshot.exportar(archivo, extra.equals("DEFLATE") ? Codec.DEFLATE : Codec.NINGUNO);
+        } else if (args[0].equalsIgnoreCase("restaurar")) {
+            filas = snapshot.restaurar(archivo, !extra.equals("ANADIR"));
+        } else {
+            System.err.println("Operación desconocida: " + args[0]);
+            System.err.println(USO);
+            System.exit(1);
+            return;
+        }
+        System.out.printf("%d filas en %d ms%n", filas, (System.nanoTime() - inicio) / 1_000_000);
+    }
+}
@@ -0,0 +1,200 @@
+package dao;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unidad de trabajo: une una sola conexión al hilo actual para que varias
+ * llamadas a ProductoDAO se confirmen o se deshagan juntas con un único commit
+ *
+ * Uso:
+ *   try (Transaccion tx = Transaccion.iniciar(dao)) {
+ *       dao.insertar(p1);
+ *       dao.actualizar(p2);
+ *       tx.confirmar();
+ *   }   // si no se confirma, se deshace al cerrar
+ *
+ * Mientras está activa, los métodos del DAO con el mismo origen usan su conexión.
+ * Si alguno falla la transacción queda marcada y confirmar() lanza SQLException.
+ * La cache de consultas y el índice de nombres solo se actualizan tras confirmar.
+ */
+public class Transaccion implements AutoCloseable {
+
+    private static final ThreadLocal<Transaccion> ACTUAL = new ThreadLocal<>();
+
+    /**
+     * Trabajo que se ejecuta dentro de una transacción
+     */
+    @FunctionalInterface
+    public interface Trabajo<T> {
+        T ejecutar(ProductoService servicio) throws SQLException;
+    }
+
+    private final String origen;
+    private final Connection conexion;
+    private final Connection compartida;
+    private final boolean propia;                 // false si la conexión la gestiona un GrupoCommit
+    private final boolean autoCommitAnterior;
+    private final List<Runnable> alConfirmar = new ArrayList<>();
+    private SQLException fallo;
+    private boolean terminada;
+
+    private Transaccion(String origen, Connection conexion, boolean propia) throws SQLException {
+        this.origen = origen;
+        this.conexion = conexion;
+        this.propia = propia;
+        this.autoCommitAnterior = conexion.getAutoCommit();
+        this.compartida = sinCierre(conexion);
+        if (propia) {
+            conexion.setAutoCommit(false);
+        }
+    }
+
+    /**
+     * Abre una conexión a la BD del DAO y la asocia al hilo actual
+     */
+    public static Transaccion iniciar(ProductoDAO dao) throws SQLException {
+        if (ACTUAL.get() != null) {
+            throw new SQLException("Ya hay una transacción activa en este hilo");
+        }
+        Connection conn = dao.abrirConexion();
+        try {
+            Transaccion tx = new Transaccion(dao.getOrigen(), conn, true);
+            ACTUAL.set(tx);
+            return tx;
+        } catch (SQLException e) {
+            conn.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Ejecuta el trabajo en una transacción: confirma si termina bien y deshace si no
+     */
+    public static <T> T ejecutar(ProductoDAO dao, Trabajo<T> trabajo) throws SQLException {
+        try (Transaccion tx = iniciar(dao)) {
+            T resultado = trabajo.ejecutar(dao);
+            tx.confirmar();
+            return resultado;
+        }
+    }
+
+    /**
+     * Transacción de un GrupoCommit: usa su conexión sin confirmar ni cerrarla
+     */
+    static Transaccion asociar(String origen, Connection conexion) throws SQLException {
+        Transaccion tx = new Transaccion(origen, conexion, false);
+        ACTUAL.set(tx);
+        return tx;
+    }
+
+    /**
+     * Transacción activa en este hilo para ese origen de datos, o null
+     */
+    static Transaccion actual(String origen) {
+        Transaccion tx = ACTUAL.get();
+        return tx != null && tx.origen.equals(origen) ? tx : null;
+    }
+
+    Connection getConexion() {
+        return compartida;
+    }
+
+    /**
+     * Acción que solo debe verse si la transacción se confirma (cache, índices)
+     */
+    void despuesDeConfirmar(Runnable accion) {
+        alConfirmar.add(accion);
+    }
+
+    void marcarFallo(SQLException e) {
+        if (fallo == null) {
+            fallo = e;
+        }
+    }
+
+    boolean isFallida() {
+        return fallo != null;
+    }
+
+    List<Runnable> getAccionesAlConfirmar() {
+        return alConfirmar;
+    }
+
+    /**
+     * Confirma todos los cambios con un solo commit
+     */
+    public void confirmar() throws SQLException {
+        if (terminada) {
+            throw new SQLException("La transacción ya ha terminado");
+        }
+        if (fallo != null) {
+            deshacer();
+            throw new SQLException("La transacción tuvo errores y se ha deshecho: " + fallo.getMessage(), fallo);
+        }
+        terminada = true;
+        if (propia) {
+            try {
+                conexion.commit();
+            } catch (SQLException e) {
+                conexion.rollback();
+                throw e;
+            }
+            alConfirmar.forEach(Runnable::run);
+        }
+    }
+
+    /**
+     * Deshace todos los cambios de la transacción
+     */
+    public void deshacer() throws SQLException {
+        if (terminada) {
+            return;
+        }
+        terminada = true;
+        alConfirmar.clear();
+        if (propia) {
+            conexion.rollback();
+        }
+    }
+
+    /**
+     * Libera el hilo y la conexión; deshace si no se llegó a confirmar
+     */
+    @Override
+    public void close() throws SQLException {
+        ACTUAL.remove();
+        if (!propia) {
+            return;
+        }
+        try {
+            deshacer();
+            conexion.setAutoCommit(autoCommitAnterior);
+        } finally {
+            conexion.close();
+        }
+    }
+
+    /**
+     * Vista de la conexión cuyo close() no hace nada, para que el
+     * try-with-resources de cada método del DAO no la cierre
+     */
+    private static Connection sinCierre(Connection conexion) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+            new Class<?>[] {Connection.class},
+            (proxy, metodo, args) -> {
+                if (metodo.getName().equals("close")) {
+                    return null;
+                }
+                try {
+                    return metodo.invoke(conexion, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            });
+    }
+}
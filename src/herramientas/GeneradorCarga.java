@@ -0,0 +1,339 @@
+package herramientas;
+
+import conexion.ConexionManager;
+import dao.GrupoCommit;
+import dao.ProductoDAO;
+import dao.ProductoDAO.TipoBD;
+import dao.ProductoService;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import modelo.ProductoElectronico;
+
+/**
+ * Generador de carga y prueba de resistencia para ProductoDAO
+ *
+ * Ejecuta una mezcla configurable de operaciones desde varios hilos (o hilos virtuales)
+ * a una tasa objetivo y muestra por intervalos el rendimiento, los errores y los
+ * percentiles de latencia. Con tasa fija la latencia se mide desde el instante en que
+ * la operación debía empezar, para no ocultar las esperas cuando el sistema se satura.
+ *
+ * Uso (parámetros clave=valor, todos opcionales):
+ *   java -Dinventario.h2.url=jdbc:h2:./carga herramientas.GeneradorCarga
+ *        hilos=16 virtuales=true tasa=2000 duracion=60 intervalo=5 productos=10000
+ *        mezcla=id:50,nombre:20,categoria:15,stock:10,insertar:5 grupo=0
+ *
+ * Con grupo=N (N > 0) las escrituras pasan por un GrupoCommit de hasta N transacciones por commit.
+ */
+public class GeneradorCarga {
+
+    public enum Operacion {
+        ID, NOMBRE, CATEGORIA, STOCK, INSERTAR
+    }
+
+    private static final String[] CATEGORIAS = {
+        "Telefono", "Portatil", "Tablet", "Monitor", "Audio", "Accesorio", "Consola"
+    };
+    private static final String[] MARCAS = {
+        "iPhone", "Galaxy", "Pixel", "ThinkPad", "MacBook", "Xperia", "Surface", "Kindle"
+    };
+
+    private final ProductoDAO dao;
+    private final int hilos;
+    private final boolean virtuales;
+    private final double tasa;
+    private final long duracionSeg;
+    private final long intervaloSeg;
+    private final Operacion[] tabla;                 // 100 entradas según los pesos de la mezcla
+
+    private final Map<Operacion, HistogramaLatencias> latencias = new EnumMap<>(Operacion.class);
+    private final Map<Operacion, LongAdder> errores = new EnumMap<>(Operacion.class);
+    private final HistogramaLatencias intervalo = new HistogramaLatencias();
+    private final LongAdder erroresIntervalo = new LongAdder();
+    private final AtomicInteger maxId = new AtomicInteger();
+    private GrupoCommit grupo;
+
+    public GeneradorCarga(ProductoDAO dao, int hilos, boolean virtuales, double tasa,
+                          long duracionSeg, long intervaloSeg, Map<Operacion, Integer> mezcla) {
+        this.dao = dao;
+        this.hilos = hilos;
+        this.virtuales = virtuales;
+        this.tasa = tasa;
+        this.duracionSeg = duracionSeg;
+        this.intervaloSeg = intervaloSeg;
+        this.tabla = construirTabla(mezcla);
+        for (Operacion op : Operacion.values()) {
+            latencias.put(op, new HistogramaLatencias());
+            errores.put(op, new LongAdder());
+        }
+    }
+
+    /**
+     * Hace que las escrituras (stock e inserciones) se confirmen por lotes
+     */
+    public void usarGrupoCommit(GrupoCommit grupo) {
+        this.grupo = grupo;
+    }
+
+    /**
+     * Inserta productos de prueba hasta tener al menos el mínimo indicado
+     */
+    public void preparar(int minimo) throws InterruptedException {
+        int actuales = dao.contarProductos();
+        if (actuales < minimo) {
+            System.out.println("Insertando " + (minimo - actuales) + " productos de prueba...");
+            try (ExecutorService pool = crearEjecutor()) {
+                for (int i = actuales; i < minimo; i++) {
+                    pool.execute(() -> dao.insertar(productoAleatorio()));
+                }
+            }
+        }
+        maxId.set(Math.max(1, dao.contarProductos()));
+    }
+
+    /**
+     * Lanza la carga durante el tiempo configurado y muestra el informe
+     */
+    public void ejecutar() throws InterruptedException {
+        long inicio = System.nanoTime();
+        long fin = inicio + TimeUnit.SECONDS.toNanos(duracionSeg);
+        // Cada hilo reparte la tasa total; 0 = sin límite (bucle cerrado)
+        long periodo = tasa > 0 ? (long) (hilos * 1_000_000_000.0 / tasa) : 0;
+
+        System.out.printf("Carga: %d hilos%s, tasa %s, %d s%n", hilos, virtuales ? " virtuales" : "",
+                tasa > 0 ? (long) tasa + " op/s" : "sin límite", duracionSeg);
+        System.out.println("    t(s)      op/s   errores    p50(ms)    p90(ms)    p99(ms)  p99.9(ms)    max(ms)");
+
+        try (ExecutorService pool = crearEjecutor()) {
+            for (int h = 0; h < hilos; h++) {
+                // Desfase inicial para que los hilos no arranquen todos a la vez
+                long primero = inicio + (periodo * h) / hilos;
+                pool.execute(() -> trabajar(primero, periodo, fin));
+            }
+
+            long siguiente = inicio;
+            while (System.nanoTime() < fin) {
+                siguiente += TimeUnit.SECONDS.toNanos(intervaloSeg);
+                LockSupport.parkNanos(Math.max(0, Math.min(siguiente, fin) - System.nanoTime()));
+                informarIntervalo((System.nanoTime() - inicio) / 1e9);
+            }
+        }
+        informarTotales((System.nanoTime() - inicio) / 1e9);
+    }
+
+    private void trabajar(long primero, long periodo, long fin) {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        long previsto = primero;
+        while (previsto < fin && System.nanoTime() < fin) {
+            if (periodo > 0) {
+                long espera = previsto - System.nanoTime();
+                if (espera > 0) {
+                    LockSupport.parkNanos(espera);
+                }
+            } else {
+                previsto = System.nanoTime();
+            }
+
+            Operacion op = tabla[rnd.nextInt(tabla.length)];
+            boolean ok;
+            try {
+                ok = ejecutarOperacion(op, rnd);
+            } catch (RuntimeException e) {
+                ok = false;
+            }
+            long micros = (System.nanoTime() - previsto) / 1_000;
+
+            latencias.get(op).registrar(micros);
+            intervalo.registrar(micros);
+            if (!ok) {
+                errores.get(op).increment();
+                erroresIntervalo.increment();
+            }
+            previsto = periodo > 0 ? previsto + periodo : System.nanoTime();
+        }
+    }
+
+    /**
+     * Ejecuta una operación contra el DAO
+     * @return false si el DAO informó de un fallo (un null o una lista vacía no cuentan como éxito
+     *         por sí solos: se mira el error que el DAO registra en el hilo)
+     */
+    private boolean ejecutarOperacion(Operacion op, ThreadLocalRandom rnd) {
+        ProductoDAO.tomarUltimoError();   // descarta errores de operaciones anteriores
+        boolean ok = ejecutarSinComprobar(op, rnd);
+        return ProductoDAO.tomarUltimoError() == null && ok;
+    }
+
+    private boolean ejecutarSinComprobar(Operacion op, ThreadLocalRandom rnd) {
+        switch (op) {
+            case ID -> dao.obtenerPorId(1 + rnd.nextInt(maxId.get()));
+            case NOMBRE -> dao.buscarPorNombre(MARCAS[rnd.nextInt(MARCAS.length)] + " " + rnd.nextInt(10));
+            case CATEGORIA -> dao.listarPorCategoria(CATEGORIAS[rnd.nextInt(CATEGORIAS.length)]);
+            case STOCK, INSERTAR -> {
+                try {
+                    return grupo == null
+                        ? escribir(dao, op, rnd)
+                        : grupo.ejecutar(servicio -> escribir(servicio, op, rnd));
+                } catch (SQLException e) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean escribir(ProductoService servicio, Operacion op, ThreadLocalRandom rnd) throws SQLException {
+        if (op == Operacion.STOCK) {
+            ProductoElectronico p = servicio.obtenerPorId(1 + rnd.nextInt(maxId.get()));
+            if (p != null) {
+                p.setStock(rnd.nextInt(500));
+                return servicio.actualizar(p);
+            }
+            return true;
+        }
+        if (!servicio.insertar(productoAleatorio())) {
+            return false;
+        }
+        maxId.incrementAndGet();
+        return true;
+    }
+
+    private void informarIntervalo(double segundos) {
+        HistogramaLatencias h = intervalo.copiarYReiniciar();
+        System.out.printf("%8.1f %9.0f %9d %s%n", segundos, h.getTotal() / (double) intervaloSeg,
+                erroresIntervalo.sumThenReset(), percentiles(h));
+    }
+
+    private void informarTotales(double segundos) {
+        System.out.println("\n--- RESUMEN (" + String.format("%.1f", segundos) + " s) ---");
+        System.out.println("operación     total      op/s   errores    p50(ms)    p90(ms)    p99(ms)  p99.9(ms)    max(ms)");
+        HistogramaLatencias global = new HistogramaLatencias();
+        long erroresTotales = 0;
+        for (Operacion op : Operacion.values()) {
+            HistogramaLatencias h = latencias.get(op);
+            if (h.getTotal() == 0) {
+                continue;
+            }
+            global.agregar(h);
+            erroresTotales += errores.get(op).sum();
+            System.out.printf("%-9s %9d %9.0f %9d %s%n", op, h.getTotal(), h.getTotal() / segundos,
+                    errores.get(op).sum(), percentiles(h));
+        }
+        System.out.printf("%-9s %9d %9.0f %9d %s%n", "TOTAL", global.getTotal(), global.getTotal() / segundos,
+                erroresTotales, percentiles(global));
+        if (global.getTotal() > 0) {
+            System.out.printf("Tasa de error: %.3f%%%n", 100.0 * erroresTotales / global.getTotal());
+        }
+        System.out.println("Cache de consultas: " + ProductoDAO.getEstadisticasCache());
+        if (grupo != null) {
+            System.out.println("Commit agrupado: " + grupo.resumen());
+        }
+    }
+
+    private static String percentiles(HistogramaLatencias h) {
+        return String.format("%10.3f %10.3f %10.3f %10.3f %10.3f",
+                h.percentil(50) / 1000.0, h.percentil(90) / 1000.0, h.percentil(99) / 1000.0,
+                h.percentil(99.9) / 1000.0, h.getMaximo() / 1000.0);
+    }
+
+    private ExecutorService crearEjecutor() {
+        return virtuales
+            ? Executors.newVirtualThreadPerTaskExecutor()
+            : Executors.newFixedThreadPool(hilos);
+    }
+
+    private static ProductoElectronico productoAleatorio() {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        return new ProductoElectronico(
+            MARCAS[rnd.nextInt(MARCAS.length)] + " " + rnd.nextInt(100),
+            CATEGORIAS[rnd.nextInt(CATEGORIAS.length)],
+            BigDecimal.valueOf(rnd.nextInt(10, 300_000), 2),
+            rnd.nextInt(500),
+            LocalDate.now().minusDays(rnd.nextInt(365))
+        );
+    }
+
+    /**
+     * Reparte las operaciones en una tabla de 100 posiciones según sus pesos
+     */
+    private static Operacion[] construirTabla(Map<Operacion, Integer> mezcla) {
+        int suma = mezcla.values().stream().mapToInt(Integer::intValue).sum();
+        if (suma <= 0) {
+            throw new IllegalArgumentException("La mezcla de operaciones está vacía");
+        }
+        Operacion[] tabla = new Operacion[100];
+        int pos = 0;
+        double acumulado = 0;
+        for (Map.Entry<Operacion, Integer> e : mezcla.entrySet()) {
+            acumulado += e.getValue() * 100.0 / suma;
+            int hasta = (int) Math.round(acumulado);
+            while (pos < hasta && pos < tabla.length) {
+                tabla[pos++] = e.getKey();
+            }
+        }
+        return tabla;
+    }
+
+    private static Map<Operacion, Integer> leerMezcla(String texto) {
+        Map<Operacion, Integer> mezcla = new LinkedHashMap<>();
+        for (String parte : texto.split(",")) {
+            String[] kv = parte.split(":");
+            mezcla.put(Operacion.valueOf(kv[0].trim().toUpperCase()), Integer.parseInt(kv[1].trim()));
+        }
+        return mezcla;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> conf = new LinkedHashMap<>();
+        conf.put("bd", "H2");
+        conf.put("hilos", "16");
+        conf.put("virtuales", "true");
+        conf.put("tasa", "2000");
+        conf.put("duracion", "60");
+        conf.put("intervalo", "5");
+        conf.put("productos", "10000");
+        conf.put("mezcla", "id:50,nombre:20,categoria:15,stock:10,insertar:5");
+        conf.put("grupo", "0");
+        for (String arg : args) {
+            String[] kv = arg.split("=", 2);
+            if (kv.length != 2 || !conf.containsKey(kv[0])) {
+                System.err.println("Parámetro no válido: " + arg + " (válidos: " + conf.keySet() + ")");
+                System.exit(1);
+            }
+            conf.put(kv[0], kv[1]);
+        }
+
+        ProductoDAO dao = new ProductoDAO(TipoBD.valueOf(conf.get("bd").toUpperCase()));
+        if (dao.getTipoBD() == TipoBD.H2) {
+            ConexionManager.crearTablaH2();
+        }
+
+        GeneradorCarga generador = new GeneradorCarga(dao,
+                Integer.parseInt(conf.get("hilos")),
+                Boolean.parseBoolean(conf.get("virtuales")),
+                Double.parseDouble(conf.get("tasa")),
+                Long.parseLong(conf.get("duracion")),
+                Long.parseLong(conf.get("intervalo")),
+                leerMezcla(conf.get("mezcla")));
+        generador.preparar(Integer.parseInt(conf.get("productos")));
+        int maxLote = Integer.parseInt(conf.get("grupo"));
+        if (maxLote > 0) {
+            try (GrupoCommit grupo = new GrupoCommit(dao.getTipoBD(), maxLote, 0)) {
+                generador.usarGrupoCommit(grupo);
+                generador.ejecutar();
+            }
+        } else {
+            generador.ejecutar();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package herramientas;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histograma de latencias log-lineal (estilo HDR) seguro entre hilos
+ * Los valores se guardan en microsegundos con un error relativo máximo de ~3%
+ * usando cubetas de tamaño fijo, así que registrar no reserva memoria.
+ */
+public class HistogramaLatencias {
+
+    private static final int BITS_SUBCUBETA = 5;
+    private static final int SUBCUBETAS = 1 << BITS_SUBCUBETA;          // 32
+    private static final int MITAD = SUBCUBETAS / 2;                     // 16
+    private static final int MAX_DESPLAZAMIENTO = 40;                    // ~2^45 µs, más de un año
+    private static final int CUBETAS = SUBCUBETAS + MAX_DESPLAZAMIENTO * MITAD;
+
+    private final AtomicLongArray cuentas = new AtomicLongArray(CUBETAS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong maximo = new AtomicLong();
+
+    /**
+     * Registra una latencia en microsegundos
+     */
+    public void registrar(long micros) {
+        long valor = Math.max(0, micros);
+        cuentas.incrementAndGet(indice(valor));
+        total.incrementAndGet();
+        maximo.accumulateAndGet(valor, Math::max);
+    }
+
+    /**
+     * Devuelve una copia con los valores acumulados y deja este histograma a cero
+     * Se usa para informar por intervalos sin detener a los hilos que registran.
+     */
+    public HistogramaLatencias copiarYReiniciar() {
+        HistogramaLatencias copia = new HistogramaLatencias();
+        long n = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            long c = cuentas.getAndSet(i, 0);
+            copia.cuentas.set(i, c);
+            n += c;
+        }
+        total.addAndGet(-n);
+        copia.total.set(n);
+        copia.maximo.set(maximo.getAndSet(0));
+        return copia;
+    }
+
+    /**
+     * Suma los valores de otro histograma a este
+     */
+    public void agregar(HistogramaLatencias otro) {
+        for (int i = 0; i < CUBETAS; i++) {
+            long c = otro.cuentas.get(i);
+            if (c != 0) {
+                cuentas.addAndGet(i, c);
+            }
+        }
+        total.addAndGet(otro.total.get());
+        maximo.accumulateAndGet(otro.maximo.get(), Math::max);
+    }
+
+    public long getTotal() {
+        return total.get();
+    }
+
+    public long getMaximo() {
+        return maximo.get();
+    }
+
+    /**
+     * Valor (µs) por debajo del cual queda el percentil indicado (0-100)
+     */
+    public long percentil(double p) {
+        long n = total.get();
+        if (n == 0) {
+            return 0;
+        }
+        long objetivo = Math.max(1, (long) Math.ceil(n * p / 100.0));
+        long acumulado = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            acumulado += cuentas.get(i);
+            if (acumulado >= objetivo) {
+                return Math.min(valorRepresentativo(i), maximo.get());
+            }
+        }
+        return maximo.get();
+    }
+
+    /**
+     * Los valores menores de 32 tienen cubeta propia; a partir de ahí cada
+     * potencia de dos se reparte en 16 cubetas según sus 5 bits más altos.
+     */
+    private static int indice(long valor) {
+        if (valor < SUBCUBETAS) {
+            return (int) valor;
+        }
+        int desplazamiento = 63 - Long.numberOfLeadingZeros(valor) - (BITS_SUBCUBETA - 1);
+        if (desplazamiento > MAX_DESPLAZAMIENTO) {
+            return CUBETAS - 1;
+        }
+        int alto = (int) (valor >>> desplazamiento);                     // entre 16 y 31
+        return SUBCUBETAS + (desplazamiento - 1) * MITAD + (alto - MITAD);
+    }
+
+    private static long valorRepresentativo(int indice) {
+        if (indice < SUBCUBETAS) {
+            return indice;
+        }
+        int desplazamiento = (indice - SUBCUBETAS) / MITAD + 1;
+        long alto = (indice - SUBCUBETAS) % MITAD + MITAD;
+        long inicio = alto << desplazamiento;
+        return inicio + ((1L << desplazamiento) - 1) / 2;
+    }
+}
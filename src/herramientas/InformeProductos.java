@@ -0,0 +1,353 @@
+package herramientas;
+
+import java.io.Closeable;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import modelo.ProductoElectronico;
+
+/**
+ * Escribe listados de productos en consola o archivo como tabla alineada, CSV o JSON por líneas
+ *
+ * Las filas se componen a mano en un StringBuilder reutilizado (sin String.format ni
+ * toString() por fila) y se vuelcan al Writer en bloques grandes, sin flush por línea.
+ * Es un Consumer para recibir las filas del DAO según se leen, sin cargar la lista entera:
+ *
+ *   try (InformeProductos informe = InformeProductos.consola(Formato.TABLA)) {
+ *       dao.recorrerTodos(informe);
+ *   }
+ *
+ * Los errores de escritura durante accept() se lanzan como UncheckedIOException.
+ */
+public class InformeProductos implements Consumer<ProductoElectronico>, Closeable {
+
+    public enum Formato {
+        TABLA, CSV, JSON
+    }
+
+    private static final int TAM_BLOQUE = 32 * 1024;
+    // Filas que se guardan antes de escribir la tabla para calcular el ancho de las columnas;
+    // si después llega un valor más largo, esa fila sale desalineada pero completa
+    private static final int MUESTRA_ANCHOS = 1000;
+    private static final String[] CABECERA = {"ID", "Nombre", "Categoría", "Precio", "Stock", "Fecha ingreso"};
+    private static final String ESPACIOS = " ".repeat(128);
+
+    private final Writer destino;
+    private final Formato formato;
+    private final boolean cerrarDestino;
+    private final StringBuilder buffer = new StringBuilder(TAM_BLOQUE + 1024);
+    private final char[] bloque = new char[TAM_BLOQUE + 1024];
+
+    private List<ProductoElectronico> muestra = new ArrayList<>();
+    private final int[] anchos = new int[CABECERA.length];
+    private boolean cabeceraEscrita;
+    private long filas;
+
+    /**
+     * @param cerrarDestino false para dejar abierto el Writer al cerrar el informe (p. ej. la consola)
+     */
+    public InformeProductos(Writer destino, Formato formato, boolean cerrarDestino) {
+        this.destino = destino;
+        this.formato = formato;
+        this.cerrarDestino = cerrarDestino;
+    }
+
+    /**
+     * Informe en la salida estándar, sin el autoflush por línea de System.out
+     */
+    public static InformeProductos consola(Formato formato) {
+        System.out.flush();
+        Writer salida = new OutputStreamWriter(new FileOutputStream(FileDescriptor.out), System.out.charset());
+        return new InformeProductos(salida, formato, false);
+    }
+
+    /**
+     * Informe en un archivo UTF-8 (se sobrescribe si existe)
+     */
+    public static InformeProductos archivo(Path ruta, Formato formato) throws IOException {
+        return new InformeProductos(Files.newBufferedWriter(ruta, StandardCharsets.UTF_8), formato, true);
+    }
+
+    @Override
+    public void accept(ProductoElectronico p) {
+        filas++;
+        if (formato == Formato.TABLA && muestra != null) {
+            // Copia: el DAO puede reutilizar el mismo objeto para cada fila
+            muestra.add(new ProductoElectronico(p.getId(), p.getNombre(), p.getCategoria(),
+                    p.getPrecio(), p.getStock(), p.getFechaIngreso()));
+            if (muestra.size() == MUESTRA_ANCHOS) {
+                escribirMuestra();
+            }
+            return;
+        }
+        escribirFila(p);
+    }
+
+    private void escribirFila(ProductoElectronico p) {
+        if (!cabeceraEscrita) {
+            escribirCabecera();
+        }
+        switch (formato) {
+            case TABLA -> filaTabla(p);
+            case CSV -> filaCsv(p);
+            case JSON -> filaJson(p);
+        }
+        if (buffer.length() >= TAM_BLOQUE) {
+            volcar();
+        }
+    }
+
+    /**
+     * Escribe todas las filas de una lista ya cargada
+     */
+    public void escribirTodos(Iterable<ProductoElectronico> productos) {
+        for (ProductoElectronico p : productos) {
+            accept(p);
+        }
+    }
+
+    /**
+     * Filas recibidas hasta ahora
+     */
+    public long getFilas() {
+        return filas;
+    }
+
+    /**
+     * Escribe lo pendiente y cierra el archivo (la consola solo se vacía)
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (muestra != null && !muestra.isEmpty()) {
+                escribirMuestra();
+            }
+            volcar();
+            destino.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            if (cerrarDestino) {
+                destino.close();
+            }
+        }
+    }
+
+    /**
+     * Calcula los anchos con las filas guardadas y las escribe; el resto ya no se guarda
+     */
+    private void escribirMuestra() {
+        List<ProductoElectronico> pendientes = muestra;
+        muestra = null;
+        for (int i = 0; i < CABECERA.length; i++) {
+            anchos[i] = CABECERA[i].length();
+        }
+        for (ProductoElectronico p : pendientes) {
+            anchos[0] = Math.max(anchos[0], digitos(p.getId()));
+            anchos[1] = Math.max(anchos[1], p.getNombre().length());
+            anchos[2] = Math.max(anchos[2], p.getCategoria().length());
+            anchos[3] = Math.max(anchos[3], precio(p.getPrecio()).length());
+            anchos[4] = Math.max(anchos[4], digitos(p.getStock()));
+        }
+        anchos[5] = Math.max(anchos[5], 10);
+        for (ProductoElectronico p : pendientes) {
+            escribirFila(p);
+        }
+    }
+
+    private void escribirCabecera() {
+        cabeceraEscrita = true;
+        switch (formato) {
+            case TABLA -> {
+                for (int i = 0; i < CABECERA.length; i++) {
+                    if (i > 0) {
+                        buffer.append(" | ");
+                    }
+                    // Los números van alineados a la derecha, también su título
+                    boolean derecha = i == 0 || i == 3 || i == 4;
+                    celda(CABECERA[i], anchos[i], derecha, i == CABECERA.length - 1);
+                }
+                buffer.append('\n');
+                for (int i = 0; i < CABECERA.length; i++) {
+                    if (i > 0) {
+                        buffer.append("-+-");
+                    }
+                    buffer.append("-".repeat(anchos[i]));
+                }
+                buffer.append('\n');
+            }
+            case CSV -> buffer.append("id,nombre,categoria,precio,stock,fecha_ingreso\n");
+            case JSON -> {
+                // JSON por líneas: sin cabecera
+            }
+        }
+    }
+
+    private void filaTabla(ProductoElectronico p) {
+        relleno(anchos[0] - digitos(p.getId()));
+        buffer.append(p.getId()).append(" | ");
+        celda(p.getNombre(), anchos[1], false, false);
+        buffer.append(" | ");
+        celda(p.getCategoria(), anchos[2], false, false);
+        buffer.append(" | ");
+        celda(precio(p.getPrecio()), anchos[3], true, false);
+        buffer.append(" | ");
+        relleno(anchos[4] - digitos(p.getStock()));
+        buffer.append(p.getStock()).append(" | ");
+        fecha(p.getFechaIngreso());
+        buffer.append('\n');
+    }
+
+    private void filaCsv(ProductoElectronico p) {
+        buffer.append(p.getId()).append(',');
+        textoCsv(p.getNombre());
+        buffer.append(',');
+        textoCsv(p.getCategoria());
+        buffer.append(',').append(precio(p.getPrecio()))
+              .append(',').append(p.getStock()).append(',');
+        fecha(p.getFechaIngreso());
+        buffer.append('\n');
+    }
+
+    private void filaJson(ProductoElectronico p) {
+        buffer.append("{\"id\":").append(p.getId()).append(",\"nombre\":");
+        textoJson(p.getNombre());
+        buffer.append(",\"categoria\":");
+        textoJson(p.getCategoria());
+        buffer.append(",\"precio\":").append(precio(p.getPrecio()))
+              .append(",\"stock\":").append(p.getStock())
+              .append(",\"fechaIngreso\":\"");
+        fecha(p.getFechaIngreso());
+        buffer.append("\"}\n");
+    }
+
+    /**
+     * Texto rellenado con espacios hasta el ancho (la última columna no se rellena por la derecha)
+     */
+    private void celda(String texto, int ancho, boolean derecha, boolean ultima) {
+        int hueco = ancho - texto.length();
+        if (derecha) {
+            relleno(hueco);
+        }
+        buffer.append(texto);
+        if (!derecha && !ultima) {
+            relleno(hueco);
+        }
+    }
+
+    private void relleno(int n) {
+        while (n > 0) {
+            int trozo = Math.min(n, ESPACIOS.length());
+            buffer.append(ESPACIOS, 0, trozo);
+            n -= trozo;
+        }
+    }
+
+    /**
+     * Fecha ISO (aaaa-mm-dd) sin pasar por un DateTimeFormatter
+     */
+    private void fecha(LocalDate fecha) {
+        buffer.append(fecha.getYear()).append('-');
+        dosDigitos(fecha.getMonthValue());
+        buffer.append('-');
+        dosDigitos(fecha.getDayOfMonth());
+    }
+
+    private void dosDigitos(int n) {
+        buffer.append((char) ('0' + n / 10)).append((char) ('0' + n % 10));
+    }
+
+    private void textoCsv(String texto) {
+        boolean comillas = false;
+        for (int i = 0; i < texto.length() && !comillas; i++) {
+            char c = texto.charAt(i);
+            comillas = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!comillas) {
+            buffer.append(texto);
+            return;
+        }
+        buffer.append('"');
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c == '"') {
+                buffer.append('"');
+            }
+            buffer.append(c);
+        }
+        buffer.append('"');
+    }
+
+    private void textoJson(String texto) {
+        buffer.append('"');
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            switch (c) {
+                case '"' -> buffer.append("\\\"");
+                case '\\' -> buffer.append("\\\\");
+                case '\n' -> buffer.append("\\n");
+                case '\r' -> buffer.append("\\r");
+                case '\t' -> buffer.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        buffer.append("\\u00").append(Character.forDigit(c >> 4, 16))
+                              .append(Character.forDigit(c & 0xF, 16));
+                    } else {
+                        buffer.append(c);
+                    }
+                }
+            }
+        }
+        buffer.append('"');
+    }
+
+    /**
+     * Precio con dos decimales, igual que el %.2f de ProductoElectronico.toString()
+     */
+    private static String precio(BigDecimal precio) {
+        return (precio.scale() == 2 ? precio : precio.setScale(2, RoundingMode.HALF_UP)).toPlainString();
+    }
+
+    private static int digitos(int n) {
+        int d = n < 0 ? 2 : 1;
+        long v = Math.abs((long) n);
+        while (v >= 10) {
+            v /= 10;
+            d++;
+        }
+        return d;
+    }
+
+    /**
+     * Pasa el contenido del buffer al Writer con un solo write()
+     */
+    private void volcar() {
+        int n = buffer.length();
+        if (n == 0) {
+            return;
+        }
+        try {
+            if (n <= bloque.length) {
+                buffer.getChars(0, n, bloque, 0);
+                destino.write(bloque, 0, n);
+            } else {
+                destino.append(buffer);
+            }
+            buffer.setLength(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
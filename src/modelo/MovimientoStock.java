@@ -0,0 +1,65 @@
+package modelo;
+
+import java.time.LocalDateTime;
+
+/**
+ * Cambio de stock de un producto (registro de solo inserción)
+ */
+public class MovimientoStock {
+
+    public enum Tipo {
+        ALTA, AJUSTE, BAJA
+    }
+
+    private final long id;
+    private final int productoId;
+    private final LocalDateTime fecha;
+    private final Tipo tipo;
+    private final int stockAnterior;
+    private final int stockNuevo;
+
+    public MovimientoStock(long id, int productoId, LocalDateTime fecha, Tipo tipo,
+                        int stockAnterior, int stockNuevo) {
+        this.id = id;
+        this.productoId = productoId;
+        this.fecha = fecha;
+        this.tipo = tipo;
+        this.stockAnterior = stockAnterior;
+        this.stockNuevo = stockNuevo;
+    }
+
+    // Getters
+    public long getId() {
+        return id;
+    }
+
+    public int getProductoId() {
+        return productoId;
+    }
+
+    public LocalDateTime getFecha() {
+        return fecha;
+    }
+
+    public Tipo getTipo() {
+        return tipo;
+    }
+
+    public int getStockAnterior() {
+        return stockAnterior;
+    }
+
+    public int getStockNuevo() {
+        return stockNuevo;
+    }
+
+    public int getVariacion() {
+        return stockNuevo - stockAnterior;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s | Producto: %d | %s | Stock: %d -> %d (%+d)",
+                fecha, productoId, tipo, stockAnterior, stockNuevo, getVariacion());
+    }
+}
@@ -0,0 +1,57 @@
+package modelo;
+
+import java.time.LocalDate;
+
+/**
+ * Movimientos de stock agregados por día (de un producto o de todo el inventario)
+ */
+public class ResumenStockDiario {
+    private final LocalDate dia;
+    private final int productoId;          // 0 = todo el inventario
+    private final long entradas;
+    private final long salidas;
+    private final long movimientos;
+    private final Integer stockFinal;      // solo por producto: stock al terminar el día
+
+    public ResumenStockDiario(LocalDate dia, int productoId, long entradas, long salidas,
+                            long movimientos, Integer stockFinal) {
+        this.dia = dia;
+        this.productoId = productoId;
+        this.entradas = entradas;
+        this.salidas = salidas;
+        this.movimientos = movimientos;
+        this.stockFinal = stockFinal;
+    }
+
+    // Getters
+    public LocalDate getDia() {
+        return dia;
+    }
+
+    public int getProductoId() {
+        return productoId;
+    }
+
+    public long getEntradas() {
+        return entradas;
+    }
+
+    public long getSalidas() {
+        return salidas;
+    }
+
+    public long getMovimientos() {
+        return movimientos;
+    }
+
+    public Integer getStockFinal() {
+        return stockFinal;
+    }
+
+    @Override
+    public String toString() {
+        String texto = String.format("%s | Entradas: %d | Salidas: %d | Movimientos: %d",
+                dia, entradas, salidas, movimientos);
+        return stockFinal == null ? texto : texto + " | Stock final: " + stockFinal;
+    }
+}